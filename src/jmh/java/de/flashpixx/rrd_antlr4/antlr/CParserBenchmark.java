@@ -0,0 +1,171 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import de.flashpixx.rrd_antlr4.benchmark.CCorpus;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * benchmarks of lexing, parsing, model building and
+ * the regular expression parsing of terminal values
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class CParserBenchmark
+{
+    /**
+     * lexer elements, which are parsed as regular expression
+     */
+    private static final String[] TERMINALVALUES = {
+        "[a-zA-Z_]", "[a-zA-Z_0-9]", "[0-9a-fA-F]", "~[\"\\\\\\r\\n]", "[ \\t\\r\\n\\f]", "[\\u0041-\\u005A]", "~[\\]\\\\]"
+    };
+    /**
+     * parse tree of the corpus grammar
+     */
+    private ANTLRv4Parser.GrammarSpecContext m_tree;
+
+    /**
+     * parses the corpus grammar once for the visitor benchmark
+     *
+     * @param p_corpus corpus
+     */
+    @Setup( Level.Trial )
+    public void setup( final CCorpus p_corpus )
+    {
+        m_tree = CParserBenchmark.parse( p_corpus.content() );
+    }
+
+    /**
+     * lexing and parsing with new lexer and parser instances
+     *
+     * @param p_corpus corpus
+     * @return parse tree
+     */
+    @Benchmark
+    public ANTLRv4Parser.GrammarSpecContext parser( final CCorpus p_corpus )
+    {
+        return CParserBenchmark.parse( p_corpus.content() );
+    }
+
+    /**
+     * lexing and parsing with the thread-local lexer and parser
+     * instances and SLL prediction with LL fallback
+     *
+     * @param p_corpus corpus
+     * @return parse tree
+     */
+    @Benchmark
+    public ANTLRv4Parser.GrammarSpecContext pooled( final CCorpus p_corpus )
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        try
+        {
+            return l_parser.lex( CharStreams.fromString( new String( p_corpus.content(), StandardCharsets.UTF_8 ) ) ).parse();
+        }
+        finally
+        {
+            l_parser.release();
+        }
+    }
+
+    /**
+     * lexing and parsing with the thread-local lexer and
+     * parser instances and full LL prediction only
+     *
+     * @param p_corpus corpus
+     * @return parse tree
+     */
+    @Benchmark
+    public ANTLRv4Parser.GrammarSpecContext ll( final CCorpus p_corpus )
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        try
+        {
+            return l_parser.lex( CharStreams.fromString( new String( p_corpus.content(), StandardCharsets.UTF_8 ) ) ).ll();
+        }
+        finally
+        {
+            l_parser.release();
+        }
+    }
+
+    /**
+     * model building of the parse tree
+     *
+     * @param p_corpus corpus
+     * @return grammar model
+     */
+    @Benchmark
+    public IGrammarModel visitor( final CCorpus p_corpus )
+    {
+        final CASTVisitorAntLR l_visitor = new CASTVisitorAntLR( p_corpus.docuclean() );
+        l_visitor.visit( m_tree );
+        return l_visitor.model();
+    }
+
+    /**
+     * regular expression parsing of terminal values without the cache
+     *
+     * @param p_blackhole blackhole
+     */
+    @Benchmark
+    public void terminalvalue( final Blackhole p_blackhole )
+    {
+        for ( final String l_value : TERMINALVALUES )
+            p_blackhole.consume( CCommon.parseterminalvalue( l_value ) );
+    }
+
+    /**
+     * lexing and parsing of a grammar
+     *
+     * @param p_content grammar content
+     * @return parse tree
+     */
+    private static ANTLRv4Parser.GrammarSpecContext parse( final byte[] p_content )
+    {
+        return new ANTLRv4Parser(
+                new CommonTokenStream(
+                        new ANTLRv4Lexer(
+                                CharStreams.fromString( new String( p_content, StandardCharsets.UTF_8 ) )
+                        )
+                )
+        ).grammarSpec();
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.benchmark;
+
+import de.flashpixx.rrd_antlr4.CSyntheticGrammar;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * grammar corpus of the benchmarks, the project directory is
+ * read from the system property "basedir" (default working directory)
+ */
+@State( Scope.Benchmark )
+public class CCorpus
+{
+    /**
+     * number of rules of the synthetic grammar
+     */
+    private static final int SYNTHETICRULES = 10000;
+    /**
+     * grammar name
+     */
+    @Param( {"JSON", "ANTLRv4Parser", "LexUnicode", "Synthetic"} )
+    public String grammar;
+
+    /**
+     * working directory with the grammar files
+     */
+    private Path m_directory;
+    /**
+     * grammar file
+     */
+    private File m_file;
+    /**
+     * grammar content
+     */
+    private byte[] m_content;
+    /**
+     * map with import name and file
+     */
+    private Map<String, File> m_imports;
+
+    /**
+     * copies the grammar files into a temporary directory
+     *
+     * @throws IOException on io errors
+     */
+    @Setup( Level.Trial )
+    public void setup() throws IOException
+    {
+        final Path l_base = Paths.get( System.getProperty( "basedir", "." ) );
+        m_directory = Files.createTempDirectory( "rrd-benchmark" );
+
+        final Path l_imports = l_base.resolve( "src/main/antlr4/imports" );
+        Stream.of(
+            l_base.resolve( "src/test/resources/JSON.g4" ),
+            l_base.resolve( "src/main/antlr4/de/flashpixx/rrd_antlr4/antlr/ANTLRv4Parser.g4" ),
+            l_imports.resolve( "LexBasic.g4" ),
+            l_imports.resolve( "LexUnicode.g4" )
+        ).forEach( i -> this.copy( i ) );
+        new CSyntheticGrammar( "Synthetic" ).rules( SYNTHETICRULES ).depth( 1 ).write( m_directory );
+
+        m_file = m_directory.resolve( grammar + ".g4" ).toFile();
+        m_content = Files.readAllBytes( m_file.toPath() );
+        m_imports = Collections.unmodifiableMap(
+            Stream.of( "LexBasic", "LexUnicode" ).collect( Collectors.toMap( i -> i, i -> m_directory.resolve( i + ".g4" ).toFile() ) )
+        );
+    }
+
+    /**
+     * removes the temporary directory
+     *
+     * @throws IOException on io errors
+     */
+    @TearDown( Level.Trial )
+    public void teardown() throws IOException
+    {
+        FileUtils.deleteDirectory( m_directory.toFile() );
+    }
+
+    /**
+     * returns the grammar file
+     *
+     * @return file
+     */
+    public final File file()
+    {
+        return m_file;
+    }
+
+    /**
+     * returns the grammar content
+     *
+     * @return content
+     */
+    public final byte[] content()
+    {
+        return m_content;
+    }
+
+    /**
+     * returns the imported grammar files
+     *
+     * @return map with grammar name and file
+     */
+    public final Map<String, File> imports()
+    {
+        return m_imports;
+    }
+
+    /**
+     * returns the documentation clean rules
+     *
+     * @return empty set
+     */
+    public final Set<String> docuclean()
+    {
+        return Collections.emptySet();
+    }
+
+    /**
+     * returns the working directory
+     *
+     * @return directory
+     */
+    public final Path directory()
+    {
+        return m_directory;
+    }
+
+    /**
+     * copies a grammar file into the working directory
+     *
+     * @param p_file grammar file
+     */
+    private void copy( final Path p_file )
+    {
+        try
+        {
+            Files.copy( p_file, m_directory.resolve( FilenameUtils.getName( p_file.toString() ) ) );
+        }
+        catch ( final IOException l_exception )
+        {
+            throw new RuntimeException( l_exception );
+        }
+    }
+
+}
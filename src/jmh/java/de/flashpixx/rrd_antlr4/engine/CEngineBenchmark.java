@@ -0,0 +1,89 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine;
+
+import de.flashpixx.rrd_antlr4.benchmark.CCorpus;
+import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * end-to-end benchmark of the engine with parsing,
+ * import resolution, rendering and writing of all templates
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class CEngineBenchmark
+{
+    /**
+     * templates
+     */
+    private static final Set<ITemplateProvider> TEMPLATES = Stream.<ITemplateProvider>of( ETemplate.HTML, ETemplate.LATEXSYNTAX ).collect( Collectors.toSet() );
+
+    /**
+     * generates all templates with a new engine, so nothing is cached
+     *
+     * @param p_corpus corpus
+     * @return error messages
+     * @throws IOException on io errors
+     */
+    @Benchmark
+    public Collection<String> generate( final CCorpus p_corpus ) throws IOException
+    {
+        return new CEngine().generate(
+            p_corpus.directory().resolve( "output" ).toFile(), new File( p_corpus.grammar ), p_corpus.file(), p_corpus.docuclean(), p_corpus.imports(), TEMPLATES
+        );
+    }
+
+    /**
+     * removes the output after each iteration
+     *
+     * @param p_corpus corpus
+     * @throws IOException on io errors
+     */
+    @TearDown( Level.Iteration )
+    public void teardown( final CCorpus p_corpus ) throws IOException
+    {
+        FileUtils.deleteDirectory( p_corpus.directory().resolve( "output" ).toFile() );
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine;
+
+import de.flashpixx.rrd_antlr4.CSyntheticGrammar;
+import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * scale benchmark of the engine with synthetic grammars of increasing size
+ * and all templates, the engine scales linear if the score divided by the
+ * number of rules is nearly constant between the sizes, the fixed costs
+ * e.g. asset copying are measured by the smallest size
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class CScaleBenchmark
+{
+    /**
+     * templates
+     */
+    private static final Set<ITemplateProvider> TEMPLATES = Collections.unmodifiableSet( Stream.<ITemplateProvider>of( ETemplate.values() ).collect( Collectors.toSet() ) );
+    /**
+     * length of the import chain
+     */
+    private static final int IMPORTS = 3;
+    /**
+     * number of rules
+     */
+    @Param( {"10", "2500", "10000", "40000"} )
+    public int rules;
+
+    /**
+     * working directory with the grammar files
+     */
+    private Path m_directory;
+    /**
+     * grammar
+     */
+    private CSyntheticGrammar m_grammar;
+    /**
+     * grammar file
+     */
+    private File m_file;
+    /**
+     * map with import name and file
+     */
+    private Map<String, File> m_imports;
+
+    /**
+     * writes the grammar files into a temporary directory
+     *
+     * @throws IOException on io errors
+     */
+    @Setup( Level.Trial )
+    public void setup() throws IOException
+    {
+        m_directory = Files.createTempDirectory( "rrd-scale" );
+        m_grammar = new CSyntheticGrammar( "Synthetic" ).rules( rules ).imports( IMPORTS );
+
+        final Map<String, File> l_files = new HashMap<>( m_grammar.write( m_directory ) );
+        m_file = l_files.remove( m_grammar.name() );
+        m_imports = Collections.unmodifiableMap( l_files );
+    }
+
+    /**
+     * removes the temporary directory
+     *
+     * @throws IOException on io errors
+     */
+    @TearDown( Level.Trial )
+    public void teardown() throws IOException
+    {
+        FileUtils.deleteDirectory( m_directory.toFile() );
+    }
+
+    /**
+     * removes the output after each iteration
+     *
+     * @throws IOException on io errors
+     */
+    @TearDown( Level.Iteration )
+    public void clean() throws IOException
+    {
+        FileUtils.deleteDirectory( m_directory.resolve( "output" ).toFile() );
+    }
+
+    /**
+     * generates all templates with a new engine, so nothing is cached
+     *
+     * @return error messages
+     * @throws IOException on io errors
+     */
+    @Benchmark
+    public Collection<String> generate() throws IOException
+    {
+        return new CEngine().generate(
+            m_directory.resolve( "output" ).toFile(), new File( m_grammar.name() ), m_file, Collections.emptySet(), m_imports, TEMPLATES
+        );
+    }
+
+}
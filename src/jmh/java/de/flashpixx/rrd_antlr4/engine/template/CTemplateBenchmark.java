@@ -0,0 +1,101 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
+import de.flashpixx.rrd_antlr4.benchmark.CCorpus;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * benchmark of the template rendering, the
+ * output is written into a null writer
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+public class CTemplateBenchmark
+{
+    /**
+     * template name
+     */
+    @Param( {"HTML", "LATEXSYNTAX"} )
+    public String template;
+
+    /**
+     * grammar models of the corpus grammar
+     */
+    private List<IGrammarModel> m_models;
+
+    /**
+     * parses the corpus grammar and its imports
+     *
+     * @param p_corpus corpus
+     * @throws IOException on io errors
+     */
+    @Setup( Level.Trial )
+    public void setup( final CCorpus p_corpus ) throws IOException
+    {
+        m_models = new CEngine().parse( p_corpus.file(), p_corpus.docuclean(), p_corpus.imports() );
+    }
+
+    /**
+     * renders the models
+     *
+     * @return template
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    @Benchmark
+    public ITemplate render() throws IOException, URISyntaxException
+    {
+        final ITemplate l_template = ETemplate.valueOf( template ).generate();
+        for ( final IGrammarModel l_model : m_models )
+        {
+            l_template.model( l_model );
+            final IGrammarComplexElement l_grammar = l_template.grammar( l_model.grammar() );
+            l_model.rules().forEach( i -> l_template.element( l_grammar, i ) );
+        }
+
+        l_template.postprocess( new NullWriter(), "" );
+        return l_template;
+    }
+
+}
@@ -102,6 +102,16 @@ public final class CCommon
         return Arrays.stream( PROPERTIES.getString( "translation" ).split( "," ) ).map( i -> i.trim().toLowerCase() ).toArray( String[]::new );
     }
 
+    /**
+     * returns the version of the package
+     *
+     * @return version string
+     */
+    public static String version()
+    {
+        return PROPERTIES.getString( "version" );
+    }
+
     /**
      * returns the language bundle
      *
@@ -23,10 +23,15 @@
 
 package de.flashpixx.rrd_antlr4;
 
+import de.flashpixx.rrd_antlr4.antlr.CGrammarParser;
 import de.flashpixx.rrd_antlr4.engine.CEngine;
-import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.CMetrics;
+import de.flashpixx.rrd_antlr4.engine.CModelCache;
+import de.flashpixx.rrd_antlr4.engine.template.CTemplateRegistry;
 import de.flashpixx.rrd_antlr4.engine.template.ITemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
 import de.flashpixx.rrd_antlr4.generator.CPlugin;
+import de.flashpixx.rrd_antlr4.generator.CPreview;
 import de.flashpixx.rrd_antlr4.generator.CStandalone;
 import de.flashpixx.rrd_antlr4.generator.IGenerator;
 import org.apache.commons.cli.CommandLine;
@@ -42,13 +47,24 @@ import org.jooq.lambda.tuple.Tuple5;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -76,10 +92,6 @@ public final class CMain extends AbstractMavenReport
      */
     private static final String ANTLRIMPORTDIR = "src/main/antlr4/imports";
 
-    /**
-     * engine instance
-     */
-    private static final CEngine ENGINE = new CEngine();
     /**
      * default output directory
      */
@@ -92,6 +104,26 @@ public final class CMain extends AbstractMavenReport
      * default grammar file extension
      */
     private static final String GRAMMARFILEEXTENSION = ".g4";
+    /**
+     * default maximum size of the model cache in megabytes
+     */
+    private static final int DEFAULTCACHESIZE = 64;
+    /**
+     * time in milliseconds to collect further file changes in watch mode
+     */
+    private static final int WATCHDEBOUNCE = 100;
+    /**
+     * exit code on command-line errors
+     */
+    private static final int EXITUSAGE = -1;
+    /**
+     * exit code if grammar files have errors
+     */
+    private static final int EXITERROR = 1;
+    /**
+     * exit code if outstanding grammar files are cancelled after the first error
+     */
+    private static final int EXITCANCELLED = 2;
 
 
     /**
@@ -129,6 +161,56 @@ public final class CMain extends AbstractMavenReport
      */
     @Parameter
     private String[] docclean;
+    /**
+     * Maven plugin directory of the model cache
+     */
+    @Parameter
+    private String cache;
+    /**
+     * Maven plugin maximum size of the model cache in megabytes
+     */
+    @Parameter( defaultValue = "" + DEFAULTCACHESIZE )
+    private int cachesize;
+    /**
+     * Maven plugin generates only outdated outputs
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean incremental;
+    /**
+     * Maven plugin number of worker threads, zero uses the number of processors
+     */
+    @Parameter( defaultValue = "0" )
+    private int threads;
+    /**
+     * Maven plugin writes static assets once into the template root directory
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean sharedassets;
+    /**
+     * Maven plugin records timing and allocation metrics of the generation phases
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean metrics;
+    /**
+     * Maven plugin cancels outstanding grammar files on the first error and fails the build
+     */
+    @Parameter( defaultValue = "false" )
+    private boolean failfast;
+    /**
+     * Maven plugin ratio of the used to the maximum heap, which clears the DFA caches of the parser, zero disables the clearing
+     */
+    @Parameter( defaultValue = "0" )
+    private double dfaclear;
+    /**
+     * Maven plugin minimum number of rules of a grammar, which are converted in parallel, zero disables the parallel conversion
+     */
+    @Parameter( defaultValue = "0" )
+    private int parallelrules;
+    /**
+     * Maven plugin file size in kilobytes from which grammar files are memory-mapped, zero disables the memory-mapping
+     */
+    @Parameter( defaultValue = "1024" )
+    private long mapthreshold;
 
 
     // --- standalone execution --------------------------------------------------------------------------------------------------------------------------------
@@ -150,7 +232,26 @@ public final class CMain extends AbstractMavenReport
         l_clioptions.addOption( "grammar", true, CCommon.languagestring( CMain.class, "grammar" ) );
         l_clioptions.addOption( "language", true, CCommon.languagestring( CMain.class, "language" ) );
         l_clioptions.addOption( "docclean", true, CCommon.languagestring( CMain.class, "documentationclean" ) );
-        l_clioptions.addOption( "templates", true, CCommon.languagestring( CMain.class, "template", Arrays.asList( ETemplate.values() ), DEFAULTTEMPLATE ) );
+        l_clioptions.addOption(
+            "templates", true,
+            CCommon.languagestring(
+                CMain.class, "template",
+                CTemplateRegistry.providers().stream().map( ITemplateProvider::name ).collect( Collectors.toList() ), DEFAULTTEMPLATE
+            )
+        );
+        l_clioptions.addOption( "cache", true, CCommon.languagestring( CMain.class, "cache" ) );
+        l_clioptions.addOption( "cachesize", true, CCommon.languagestring( CMain.class, "cachesize", DEFAULTCACHESIZE ) );
+        l_clioptions.addOption( "incremental", false, CCommon.languagestring( CMain.class, "incremental" ) );
+        l_clioptions.addOption( "threads", true, CCommon.languagestring( CMain.class, "threads" ) );
+        l_clioptions.addOption( "sharedassets", false, CCommon.languagestring( CMain.class, "sharedassets" ) );
+        l_clioptions.addOption( "watch", false, CCommon.languagestring( CMain.class, "watch" ) );
+        l_clioptions.addOption( "preview", true, CCommon.languagestring( CMain.class, "preview" ) );
+        l_clioptions.addOption( "metrics", false, CCommon.languagestring( CMain.class, "metrics" ) );
+        l_clioptions.addOption( "metricsjson", true, CCommon.languagestring( CMain.class, "metricsjson" ) );
+        l_clioptions.addOption( "dfaclear", true, CCommon.languagestring( CMain.class, "dfaclear" ) );
+        l_clioptions.addOption( "parallelrules", true, CCommon.languagestring( CMain.class, "parallelrules" ) );
+        l_clioptions.addOption( "mapthreshold", true, CCommon.languagestring( CMain.class, "mapthreshold", CEngine.DEFAULTMAPTHRESHOLD / 1024 ) );
+        l_clioptions.addOption( "failfast", false, CCommon.languagestring( CMain.class, "failfast", EXITCANCELLED, EXITERROR ) );
 
 
         final CommandLine l_cli;
@@ -161,7 +262,7 @@ public final class CMain extends AbstractMavenReport
         catch ( final Exception l_exception )
         {
             System.err.println( CCommon.languagestring( CMain.class, "parseerror", l_exception.getLocalizedMessage() ) );
-            System.exit( -1 );
+            System.exit( EXITUSAGE );
             return;
         }
 
@@ -177,11 +278,11 @@ public final class CMain extends AbstractMavenReport
         if ( !l_cli.hasOption( "grammar" ) )
         {
             System.err.println( CCommon.languagestring( CMain.class, "grammarnotset" ) );
-            System.exit( -1 );
+            System.exit( EXITUSAGE );
         }
 
 
-        final Tuple5<File, Set<ETemplate>, Set<File>, Set<String>, Set<String>> l_initdata = CMain.initialize(
+        final Tuple5<File, Set<ITemplateProvider>, Set<File>, Set<String>, Set<String>> l_initdata = CMain.initialize(
             l_cli.getOptionValue( "language" ),
 
             l_cli.hasOption( "output" )
@@ -200,18 +301,53 @@ public final class CMain extends AbstractMavenReport
         );
 
 
-        // --- run generator ---
-        final IGenerator l_generator = new CStandalone( l_initdata.v1(), l_initdata.v3(), l_initdata.v5(), l_initdata.v2() );
-
-        if ( Arrays.stream( l_cli.getOptionValue( "grammar" ).split( "," ) )
-                   .flatMap( i -> CMain.filelist( new File( i.trim() ), l_initdata.v3(), l_initdata.v4() ) )
-                   .map( i -> l_generator.generate( i ).hasError() )
-                   .findFirst()
-                   .isPresent()
-            )
-            System.exit( -1 );
+        // --- run generator, the preview serves the output instead of writing files ---
+        final CEngine l_engine = CMain.engine(
+            l_cli.getOptionValue( "cache" ),
+            Integer.parseInt( l_cli.getOptionValue( "cachesize", "" + DEFAULTCACHESIZE ) ),
+            l_cli.hasOption( "sharedassets" ),
+            ( l_cli.hasOption( "metrics" ) ) || ( l_cli.hasOption( "metricsjson" ) ),
+            Double.parseDouble( l_cli.getOptionValue( "dfaclear", "0" ) ),
+            Integer.parseInt( l_cli.getOptionValue( "parallelrules", "0" ) ),
+            Long.parseLong( l_cli.getOptionValue( "mapthreshold", "" + CEngine.DEFAULTMAPTHRESHOLD / 1024 ) )
+        );
 
-        l_generator.finish();
+        // import files are read again on changes, so new or renamed imports are resolved in watch and preview sessions
+        final Supplier<Set<File>> l_imports = () -> CMain.imports( l_cli.getOptionValue( "imports", "" ).split( "," ) );
+        final IGenerator l_generator = l_cli.hasOption( "preview" )
+                                       ? new CPreview( l_engine, l_imports, l_initdata.v5(), Integer.parseInt( l_cli.getOptionValue( "preview" ) ) )
+                                       : new CStandalone(
+                                           l_engine, l_initdata.v1(), l_imports, l_initdata.v5(), l_initdata.v2(),
+                                           l_cli.hasOption( "incremental" ), l_cli.hasOption( "failfast" )
+                                       );
+
+        final int l_threads = CMain.threads( Integer.parseInt( l_cli.getOptionValue( "threads", "0" ) ) );
+        final Supplier<Stream<File>> l_grammars = () ->
+        {
+            final Set<File> l_importfiles = l_imports.get();
+            return Arrays.stream( l_cli.getOptionValue( "grammar" ).split( "," ) )
+                         .flatMap( i -> CMain.filelist( new File( i.trim() ), l_importfiles, l_initdata.v4() ) );
+        };
+
+        // all grammar files are finished before the error report is written
+        final boolean l_error = l_generator.generate( CMain.discover( l_engine.metrics(), l_grammars.get() ), l_threads ).finish().hasError();
+        final int l_cancelled = l_generator.cancelled();
+        CMain.metrics( l_engine.metrics(), l_cli.hasOption( "metrics" ), l_cli.getOptionValue( "metricsjson" ) );
+
+        if ( ( l_error ) && ( ( !l_cli.hasOption( "watch" ) ) || ( l_cli.hasOption( "preview" ) ) ) )
+            System.exit( l_cancelled > 0 ? EXITCANCELLED : EXITERROR );
+
+        // --- watch grammar and import directories, the engine and its parsed models are kept ---
+        if ( l_cli.hasOption( "watch" ) )
+            CMain.watch(
+                l_generator,
+                Stream.concat(
+                    Arrays.stream( l_cli.getOptionValue( "grammar" ).split( "," ) ).map( i -> new File( i.trim() ) ),
+                    Arrays.stream( l_cli.getOptionValue( "imports", "" ).split( "," ) ).map( String::trim ).filter( i -> !i.isEmpty() ).map( File::new )
+                ),
+                l_grammars,
+                l_threads
+            );
     }
 
     // ---------------------------------------------------------------------------------------------------------------------------------------------------------
@@ -243,7 +379,7 @@ public final class CMain extends AbstractMavenReport
         if ( ( imports == null ) || ( imports.length == 0 ) )
             throw new MavenReportException( CCommon.languagestring( this, "importempty" ) );
 
-        final Tuple5<File, Set<ETemplate>, Set<File>, Set<String>, Set<String>> l_initdata = CMain.initialize(
+        final Tuple5<File, Set<ITemplateProvider>, Set<File>, Set<String>, Set<String>> l_initdata = CMain.initialize(
             p_locale.toLanguageTag(),
             output,
             templates,
@@ -252,13 +388,36 @@ public final class CMain extends AbstractMavenReport
             docclean
         );
 
+        final CEngine l_engine;
+        try
+        {
+            l_engine = CMain.engine( cache, cachesize, sharedassets, metrics, dfaclear, parallelrules, mapthreshold );
+        }
+        catch ( final IOException l_exception )
+        {
+            throw new MavenReportException( l_exception.getMessage(), l_exception );
+        }
+
         // --- run generator ---
-        final IGenerator l_generator = new CPlugin( this, NAME, l_initdata.v1(), new File( grammarbasedir ), l_initdata.v3(), l_initdata.v5(), l_initdata.v2() );
-        Arrays.stream( grammar )
-              .flatMap( i -> CMain.filelist( new File( i.trim() ), l_initdata.v3(), l_initdata.v4() ) )
-              .forEach( l_generator::generate );
+        final IGenerator l_generator = new CPlugin(
+            this, NAME, l_engine, l_initdata.v1(), new File( grammarbasedir ), l_initdata.v3(), l_initdata.v5(), l_initdata.v2(), incremental, failfast
+        );
+        l_generator.generate(
+            CMain.discover(
+                l_engine.metrics(),
+                Arrays.stream( grammar )
+                      .flatMap( i -> CMain.filelist( new File( i.trim() ), l_initdata.v3(), l_initdata.v4() ) )
+            ),
+            CMain.threads( threads )
+        );
 
-        l_generator.finish();
+        // errors of grammar files are reported in both modes, cancellation only if grammar files are cancelled
+        if ( !l_generator.finish().hasError() )
+            return;
+
+        if ( l_generator.cancelled() > 0 )
+            throw new MavenReportException( CCommon.languagestring( this, "cancelled" ) );
+        throw new MavenReportException( CCommon.languagestring( this, "error" ) );
     }
 
     // ---------------------------------------------------------------------------------------------------------------------------------------------------------
@@ -266,6 +425,26 @@ public final class CMain extends AbstractMavenReport
 
     // --- helper ----------------------------------------------------------------------------------------------------------------------------------------------
 
+    /**
+     * reads the imported grammar files
+     *
+     * @param p_imports import string array with files or directories
+     * @return set with imported grammar files
+     */
+    private static Set<File> imports( final String[] p_imports )
+    {
+        return ( p_imports == null ) || ( p_imports.length == 0 )
+               ? Collections.<File>emptySet()
+               : Collections.unmodifiableSet(
+                   Arrays.stream( p_imports )
+                         .map( String::trim )
+                         .filter( i -> !i.isEmpty() )
+                         .map( File::new )
+                         .flatMap( i -> CMain.filelist( i, Collections.<File>emptySet(), Collections.<String>emptySet() ) )
+                         .collect( Collectors.toSet() )
+               );
+    }
+
     /**
      * initialize all data
      *
@@ -277,7 +456,7 @@ public final class CMain extends AbstractMavenReport
      * @param p_docclean documentation clean array
      * @return 5-tuple with initialized and converted data
      */
-    private static Tuple5<File, Set<ETemplate>, Set<File>, Set<String>, Set<String>> initialize(
+    private static Tuple5<File, Set<ITemplateProvider>, Set<File>, Set<String>, Set<String>> initialize(
         final String p_locale, final String p_outputdirectory, final String[] p_templates,
         final String[] p_imports, final String[] p_excludes, final String[] p_docclean
     )
@@ -292,23 +471,14 @@ public final class CMain extends AbstractMavenReport
             new File( p_outputdirectory ),
 
             ( p_templates == null ) || ( p_templates.length == 0 )
-            ? Collections.<ETemplate>emptySet()
+            ? Collections.<ITemplateProvider>emptySet()
             : Collections.unmodifiableSet(
                 Arrays.stream( p_templates )
-                      .map( i -> ETemplate.valueOf( i.trim().toUpperCase() ) )
+                      .map( CTemplateRegistry::get )
                       .collect( Collectors.toSet() )
             ),
 
-            ( p_imports == null ) || ( p_imports.length == 0 )
-            ? Collections.<File>emptySet()
-            : Collections.unmodifiableSet(
-                Arrays.stream( p_imports )
-                      .map( String::trim )
-                      .filter( i -> !i.isEmpty() )
-                      .map( File::new )
-                      .flatMap( i -> CMain.filelist( i, Collections.<File>emptySet(), Collections.<String>emptySet() ) )
-                      .collect( Collectors.toSet() )
-            ),
+            CMain.imports( p_imports ),
 
             ( p_excludes == null ) || ( p_excludes.length == 0 )
             ? Collections.<String>emptySet()
@@ -342,6 +512,186 @@ public final class CMain extends AbstractMavenReport
     }
 
 
+    /**
+     * creates the engine
+     *
+     * @param p_cache cache directory or null / empty to disable caching
+     * @param p_cachesize maximum size of the cache in megabytes
+     * @param p_sharedassets static assets are written once into the template root directory
+     * @param p_metrics records timing and allocation metrics
+     * @param p_dfaclear ratio of the used to the maximum heap, which clears the DFA caches of the parser
+     * @param p_parallelrules minimum number of rules of a grammar, which are converted in parallel
+     * @param p_mapthreshold file size in kilobytes from which grammar files are memory-mapped
+     * @return engine
+     * @throws IOException if the cache directory cannot be created
+     */
+    private static CEngine engine( final String p_cache, final long p_cachesize, final boolean p_sharedassets, final boolean p_metrics,
+                                   final double p_dfaclear, final int p_parallelrules, final long p_mapthreshold
+    ) throws IOException
+    {
+        return new CEngine(
+            ( p_cache == null ) || ( p_cache.trim().isEmpty() )
+            ? null
+            : new CModelCache( new File( p_cache.trim() ), p_cachesize * 1024 * 1024 ),
+            p_sharedassets,
+            p_metrics ? new CMetrics( true ) : CMetrics.DISABLED,
+            p_dfaclear,
+            p_parallelrules,
+            p_mapthreshold * 1024
+        );
+    }
+
+    /**
+     * collects the grammar files, so the discovery
+     * phase is measured if metrics are enabled
+     *
+     * @param p_metrics metrics
+     * @param p_files stream of grammar files
+     * @return stream of grammar files
+     */
+    private static Stream<File> discover( final CMetrics p_metrics, final Stream<File> p_files )
+    {
+        if ( !p_metrics.enabled() )
+            return p_files;
+
+        try
+            (
+                final CMetrics.CMeasure l_measure = p_metrics.measure( "", "", CMetrics.EPhase.DISCOVERY )
+            )
+        {
+            return p_files.collect( Collectors.toList() ).stream();
+        }
+    }
+
+    /**
+     * reports the metrics
+     *
+     * @param p_metrics metrics
+     * @param p_table prints the metrics table
+     * @param p_json JSON output file or null
+     * @throws IOException on io errors
+     */
+    private static void metrics( final CMetrics p_metrics, final boolean p_table, final String p_json ) throws IOException
+    {
+        if ( !p_metrics.enabled() )
+            return;
+
+        if ( p_table )
+        {
+            Stream.concat( Stream.<String[]>of( CMetrics.HEADER ), p_metrics.table().stream() )
+                  .map( i -> String.format( "%-40s %-14s %-14s %8s %12s %16s %14s", (Object[]) i ) )
+                  .forEach( System.out::println );
+            System.out.println(
+                CCommon.languagestring( CMain.class, "prediction", CGrammarParser.statistic().getLeft(), CGrammarParser.statistic().getRight() )
+            );
+        }
+
+        if ( p_json != null )
+            try
+                (
+                    final Writer l_writer = Files.newBufferedWriter( new File( p_json ).toPath(), StandardCharsets.UTF_8 )
+                )
+            {
+                p_metrics.json( l_writer );
+            }
+    }
+
+    /**
+     * returns the number of worker threads
+     *
+     * @param p_threads number of threads, values less than one use the number of processors
+     * @return number of threads
+     */
+    private static int threads( final int p_threads )
+    {
+        return p_threads < 1 ? Runtime.getRuntime().availableProcessors() : p_threads;
+    }
+
+    /**
+     * watches the grammar directories and regenerates the exports
+     * of changed grammar files and of the grammars which import them
+     *
+     * @param p_generator generator
+     * @param p_files grammar files or directories
+     * @param p_grammars supplier of all grammar files
+     * @param p_threads number of worker threads
+     * @throws IOException on io errors
+     * @note changes are collected until no further change arrives within the debounce time,
+     * so multiple writes of an editor result in one regeneration
+     */
+    private static void watch( final IGenerator p_generator, final Stream<File> p_files, final Supplier<Stream<File>> p_grammars, final int p_threads )
+        throws IOException
+    {
+        try
+            (
+                final WatchService l_watcher = FileSystems.getDefault().newWatchService()
+            )
+        {
+            final Set<Path> l_directories = p_files.map( i -> i.isDirectory() ? i : i.getAbsoluteFile().getParentFile() )
+                                                   .map( i -> i.toPath().toAbsolutePath().normalize() )
+                                                   .collect( Collectors.toSet() );
+            for ( final Path l_directory : l_directories )
+                CMain.register( l_watcher, l_directory );
+
+            System.out.println( CCommon.languagestring( CMain.class, "watching", l_directories ) );
+            while ( !Thread.currentThread().isInterrupted() )
+            {
+                final Set<File> l_changed = new HashSet<>();
+                for ( WatchKey l_key = l_watcher.take(); l_key != null; l_key = l_watcher.poll( WATCHDEBOUNCE, TimeUnit.MILLISECONDS ) )
+                {
+                    for ( final WatchEvent<?> l_event : l_key.pollEvents() )
+                    {
+                        // on lost events all grammars are changed
+                        if ( l_event.kind() == StandardWatchEventKinds.OVERFLOW )
+                        {
+                            p_grammars.get().forEach( l_changed::add );
+                            continue;
+                        }
+
+                        final Path l_path = ( (Path) l_key.watchable() ).resolve( (Path) l_event.context() );
+                        if ( Files.isDirectory( l_path ) )
+                            CMain.register( l_watcher, l_path );
+                        else if ( l_path.toString().endsWith( GRAMMARFILEEXTENSION ) )
+                            l_changed.add( l_path.toFile() );
+                    }
+                    l_key.reset();
+                }
+
+                if ( l_changed.isEmpty() )
+                    continue;
+
+                System.out.println( CCommon.languagestring( CMain.class, "watchchanged", l_changed ) );
+                p_generator.changed( l_changed, p_grammars.get(), p_threads ).finish();
+            }
+        }
+        catch ( final InterruptedException l_exception )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * registers a directory and all subdirectories
+     *
+     * @param p_watcher watch service
+     * @param p_directory directory
+     * @throws IOException on io errors
+     */
+    private static void register( final WatchService p_watcher, final Path p_directory ) throws IOException
+    {
+        final List<Path> l_directories;
+        try
+            (
+                final Stream<Path> l_stream = Files.walk( p_directory )
+            )
+        {
+            l_directories = l_stream.filter( Files::isDirectory ).collect( Collectors.toList() );
+        }
+
+        for ( final Path l_directory : l_directories )
+            l_directory.register( p_watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE );
+    }
+
     /**
      * returns a list of grammar files
      *
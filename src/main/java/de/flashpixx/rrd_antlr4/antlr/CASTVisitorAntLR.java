@@ -23,10 +23,12 @@
 
 package de.flashpixx.rrd_antlr4.antlr;
 
-import de.flashpixx.rrd_antlr4.engine.template.ITemplate;
-
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
 
@@ -37,43 +39,60 @@ import java.util.stream.Collectors;
 public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarElement>
 {
     /**
-     * exporting template
+     * minimum number of rules of a chunk, which is converted by a single task
      */
-    private final ITemplate m_template;
+    private static final int MINIMUMCHUNK = 16;
     /**
      * grammar name - is set by the first grammar rule
      */
     private IGrammarComplexElement m_grammar;
+    /**
+     * list with rules in definition order
+     */
+    private final List<IGrammarComplexElement> m_rules = new ArrayList<>();
     /**
      * set with grammer imports
      */
-    private Set<IGrammarSimpleElement<String>> m_imports = new HashSet<>();
+    private Set<IGrammarSimpleElement<String>> m_imports = new LinkedHashSet<>();
     /**
      * set with documentation clean pattern
      */
     private final Set<String> m_docuclean;
+    /**
+     * minimum number of rules, which are converted in parallel
+     */
+    private final int m_parallelrules;
 
     /**
-     * exporting template
+     * ctor
      *
-     * @param p_template template
      * @param p_docuclean set with regex for documentation cleanup
      */
-    public CASTVisitorAntLR( final ITemplate p_template, final Set<String> p_docuclean )
+    public CASTVisitorAntLR( final Set<String> p_docuclean )
+    {
+        this( p_docuclean, 0 );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_docuclean set with regex for documentation cleanup
+     * @param p_parallelrules minimum number of rules of a grammar, which are converted
+     * in parallel on the common fork-join pool, values less than one disable the parallel conversion
+     */
+    public CASTVisitorAntLR( final Set<String> p_docuclean, final int p_parallelrules )
     {
-        m_template = p_template;
         m_docuclean = p_docuclean;
+        m_parallelrules = p_parallelrules;
     }
 
 
     @Override
     public final IGrammarElement visitGrammarSpec( final ANTLRv4Parser.GrammarSpecContext p_context )
     {
-        m_grammar = m_template.grammar(
-                new CGrammar(
-                        p_context.id().getText(),
-                        CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean )
-                )
+        m_grammar = new CGrammar(
+                p_context.id().getText(),
+                CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean )
         );
         return super.visitGrammarSpec( p_context );
     }
@@ -88,16 +107,24 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     }
 
     @Override
-    public final IGrammarElement visitParserRuleSpec( final ANTLRv4Parser.ParserRuleSpecContext p_context )
+    public final IGrammarElement visitRules( final ANTLRv4Parser.RulesContext p_context )
     {
-        return m_template.element(
-                m_grammar,
-                new CGrammarRule(
-                        p_context.RULE_REF().getText(),
-                        CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean ),
-                        this.visitRuleBlock( p_context.ruleBlock() )
-                )
+        final List<ANTLRv4Parser.RuleSpecContext> l_rules = p_context.ruleSpec();
+        if ( ( m_parallelrules < 1 ) || ( l_rules.size() < m_parallelrules ) || ( ForkJoinPool.getCommonPoolParallelism() < 2 ) )
+            return super.visitRules( p_context );
+
+        m_rules.addAll(
+            ForkJoinPool.commonPool().invoke(
+                new CRuleTask( l_rules, 0, l_rules.size(), Math.max( MINIMUMCHUNK, l_rules.size() / ( 4 * ForkJoinPool.getCommonPoolParallelism() ) ) )
+            )
         );
+        return null;
+    }
+
+    @Override
+    public final IGrammarElement visitParserRuleSpec( final ANTLRv4Parser.ParserRuleSpecContext p_context )
+    {
+        return this.rule( this.parserrule( p_context ) );
     }
 
     @Override
@@ -137,14 +164,7 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     public final IGrammarElement visitLexerRuleSpec( final ANTLRv4Parser.LexerRuleSpecContext p_context )
     {
         // Element Push
-        return m_template.element(
-                m_grammar,
-                new CGrammarNonTerminal(
-                        p_context.TOKEN_REF().getText(),
-                        CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean ),
-                        this.visitLexerRuleBlock( p_context.lexerRuleBlock() )
-                )
-        );
+        return this.rule( this.lexerrule( p_context ) );
     }
 
     @Override
@@ -162,7 +182,7 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     public final IGrammarElement visitNotSet( final ANTLRv4Parser.NotSetContext p_context )
     {
         // Sequence with NOT
-        return new CGrammarNegation( this.visitChildren( p_context ) );
+        return CCommon.intern( new CGrammarNegation( this.visitChildren( p_context ) ) );
     }
 
     @Override
@@ -236,7 +256,7 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     public final IGrammarElement visitBlock( final ANTLRv4Parser.BlockContext p_context )
     {
         // only alternative elements are needed
-        return new CGrammarGroup( this.visitAltList( p_context.altList() ) );
+        return CCommon.intern( new CGrammarGroup( this.visitAltList( p_context.altList() ) ) );
     }
 
 
@@ -244,10 +264,12 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     @Override
     public final IGrammarElement visitTerminal( final ANTLRv4Parser.TerminalContext p_context )
     {
-        return new CGrammarIdentifier(
-                p_context.TOKEN_REF() != null
-                ? p_context.TOKEN_REF().getText()
-                : p_context.STRING_LITERAL().getText()
+        return CCommon.intern(
+                new CGrammarIdentifier(
+                        p_context.TOKEN_REF() != null
+                        ? p_context.TOKEN_REF().getText()
+                        : p_context.STRING_LITERAL().getText()
+                )
         );
     }
 
@@ -260,13 +282,13 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
     @Override
     public final IGrammarElement visitRuleref( final ANTLRv4Parser.RulerefContext p_context )
     {
-        return new CGrammarIdentifier( p_context.RULE_REF().getText() );
+        return CCommon.intern( new CGrammarIdentifier( p_context.RULE_REF().getText() ) );
     }
 
     @Override
     public final IGrammarElement visitId( final ANTLRv4Parser.IdContext p_context )
     {
-        return new CGrammarIdentifier( p_context.getText() );
+        return CCommon.intern( new CGrammarIdentifier( p_context.getText() ) );
     }
 
 
@@ -281,4 +303,128 @@ public final class CASTVisitorAntLR extends ANTLRv4ParserBaseVisitor<IGrammarEle
         return m_imports;
     }
 
+    /**
+     * returns the immutable model of the visited grammar
+     *
+     * @return grammar model
+     */
+    public final IGrammarModel model()
+    {
+        return new CGrammarModel(
+            m_grammar,
+            m_rules,
+            m_imports.stream().map( i -> i.<String>get() ).collect( Collectors.toCollection( LinkedHashSet::new ) )
+        );
+    }
+
+    /**
+     * adds a rule to the model
+     *
+     * @param p_rule rule
+     * @return rule
+     */
+    private IGrammarComplexElement rule( final IGrammarComplexElement p_rule )
+    {
+        m_rules.add( p_rule );
+        return p_rule;
+    }
+
+    /**
+     * converts a parser rule without adding it to the model
+     *
+     * @param p_context parser rule context
+     * @return rule
+     */
+    private IGrammarComplexElement parserrule( final ANTLRv4Parser.ParserRuleSpecContext p_context )
+    {
+        return new CGrammarRule(
+                p_context.RULE_REF().getText(),
+                CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean ),
+                this.visitRuleBlock( p_context.ruleBlock() )
+        );
+    }
+
+    /**
+     * converts a lexer rule without adding it to the model
+     *
+     * @param p_context lexer rule context
+     * @return rule
+     */
+    private IGrammarComplexElement lexerrule( final ANTLRv4Parser.LexerRuleSpecContext p_context )
+    {
+        return new CGrammarNonTerminal(
+                p_context.TOKEN_REF().getText(),
+                CCommon.cleanComment( p_context.DOC_COMMENT() == null ? null : p_context.DOC_COMMENT().getText(), m_docuclean ),
+                this.visitLexerRuleBlock( p_context.lexerRuleBlock() )
+        );
+    }
+
+
+    /**
+     * task to convert a range of rules, the range is split until
+     * it fits the chunk size and the results of the subranges
+     * are merged in definition order
+     *
+     * @note the rule conversion does not change the state of the visitor,
+     * elements are interned by a thread-safe interner and terminal values
+     * are parsed with the parser instance of the worker thread
+     */
+    private final class CRuleTask extends RecursiveTask<List<IGrammarComplexElement>>
+    {
+        /**
+         * rules
+         */
+        private final List<ANTLRv4Parser.RuleSpecContext> m_specs;
+        /**
+         * start index (inclusive)
+         */
+        private final int m_start;
+        /**
+         * end index (exclusive)
+         */
+        private final int m_end;
+        /**
+         * chunk size
+         */
+        private final int m_chunk;
+
+        /**
+         * ctor
+         *
+         * @param p_specs rules
+         * @param p_start start index (inclusive)
+         * @param p_end end index (exclusive)
+         * @param p_chunk chunk size
+         */
+        CRuleTask( final List<ANTLRv4Parser.RuleSpecContext> p_specs, final int p_start, final int p_end, final int p_chunk )
+        {
+            m_specs = p_specs;
+            m_start = p_start;
+            m_end = p_end;
+            m_chunk = p_chunk;
+        }
+
+        @Override
+        protected final List<IGrammarComplexElement> compute()
+        {
+            if ( m_end - m_start <= m_chunk )
+                return m_specs.subList( m_start, m_end )
+                              .stream()
+                              .map( i -> i.parserRuleSpec() != null
+                                         ? CASTVisitorAntLR.this.parserrule( i.parserRuleSpec() )
+                                         : CASTVisitorAntLR.this.lexerrule( i.lexerRuleSpec() )
+                              )
+                              .collect( Collectors.toList() );
+
+            final int l_middle = ( m_start + m_end ) >>> 1;
+            final CRuleTask l_left = new CRuleTask( m_specs, m_start, l_middle, m_chunk );
+            l_left.fork();
+
+            final List<IGrammarComplexElement> l_right = new CRuleTask( m_specs, l_middle, m_end, m_chunk ).compute();
+            final List<IGrammarComplexElement> l_rules = new ArrayList<>( l_left.join() );
+            l_rules.addAll( l_right );
+            return l_rules;
+        }
+    }
+
 }
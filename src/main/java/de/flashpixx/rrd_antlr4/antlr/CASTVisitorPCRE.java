@@ -52,7 +52,7 @@ public final class CASTVisitorPCRE extends PCREBaseVisitor<Object>
     {
         return CCommon.choice(
                 p_context.cc_atom().stream()
-                         .map( i -> new CGrammarTerminalValue<>( i.getText() ) )
+                         .map( i -> CCommon.intern( new CGrammarTerminalValue<>( i.getText() ) ) )
                          .collect( Collectors.toList() )
         );
     }
@@ -168,10 +168,12 @@ public final class CASTVisitorPCRE extends PCREBaseVisitor<Object>
      */
     private IGrammarElement terminalvalue( final String p_string )
     {
-        return new CGrammarTerminalValue<>(
-                ".".equals( p_string )
-                ? de.flashpixx.rrd_antlr4.CCommon.languagestring( this, "anychar" )
-                : p_string
+        return CCommon.intern(
+                new CGrammarTerminalValue<>(
+                        ".".equals( p_string )
+                        ? de.flashpixx.rrd_antlr4.CCommon.languagestring( this, "anychar" )
+                        : p_string
+                )
         );
     }
 
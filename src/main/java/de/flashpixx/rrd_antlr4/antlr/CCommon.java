@@ -23,13 +23,17 @@
 
 package de.flashpixx.rrd_antlr4.antlr;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import de.flashpixx.rrd_antlr4.CStringReplace;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -40,6 +44,23 @@ import java.util.regex.PatternSyntaxException;
  */
 public final class CCommon
 {
+    /**
+     * maximum number of cached terminal values
+     */
+    private static final int TERMINALCACHESIZE = 8192;
+    /**
+     * interner of the grammar elements, so equal
+     * subtrees share one instance
+     */
+    private static final Interner<IGrammarElement> INTERNER = Interners.newWeakInterner();
+    /**
+     * cache of the parsed terminal values, keyed by
+     * language and raw lexer-element text
+     */
+    private static final Cache<Pair<String, String>, IGrammarElement> TERMINALCACHE = CacheBuilder.newBuilder()
+                                                                                                .maximumSize( TERMINALCACHESIZE )
+                                                                                                .recordStats()
+                                                                                                .build();
 
     /**
      * ctor
@@ -48,6 +69,19 @@ public final class CCommon
     {
     }
 
+    /**
+     * returns the shared instance of an element
+     *
+     * @param p_element element
+     * @tparam T element type
+     * @return shared element, which is equal to the argument
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends IGrammarElement> T intern( final T p_element )
+    {
+        return (T) INTERNER.intern( p_element );
+    }
+
     /**
      * clean string value
      *
@@ -72,7 +106,7 @@ public final class CCommon
     {
         return p_elements.size() == 1
                ? p_elements.get( 0 )
-               : new CGrammarChoice( p_elements );
+               : CCommon.intern( new CGrammarChoice( p_elements ) );
     }
 
     /**
@@ -85,7 +119,7 @@ public final class CCommon
     {
         return p_elements.size() == 1
                ? p_elements.get( 0 )
-               : new CGrammarSequence( p_elements );
+               : CCommon.intern( new CGrammarSequence( p_elements ) );
     }
 
     /**
@@ -115,28 +149,50 @@ public final class CCommon
      * @param p_value data string
      * @return grammar terminal element
      */
-    @SuppressWarnings( "unchecked" )
     public static IGrammarElement terminalvalue( final String p_value )
     {
         // a terminal-string starts and ends always with ', so we do
         // not need to parse th string if this condition fits
         if ( ( p_value.startsWith( "'" ) ) && ( p_value.endsWith( "'" ) ) )
-            return new CGrammarTerminalValue<>( p_value );
+            return CCommon.intern( new CGrammarTerminalValue<>( p_value ) );
+
+        // the parsed element contains language dependent labels
+        final Pair<String, String> l_key = new ImmutablePair<>( Locale.getDefault().toLanguageTag(), p_value );
+        final IGrammarElement l_element = TERMINALCACHE.getIfPresent( l_key );
+        if ( l_element != null )
+            return l_element;
 
+        final IGrammarElement l_parsed = CCommon.intern( CCommon.parseterminalvalue( p_value ) );
+        TERMINALCACHE.put( l_key, l_parsed );
+        return l_parsed;
+    }
+
+    /**
+     * returns the hit / miss statistic of the terminal value cache
+     *
+     * @return cache statistic
+     */
+    public static CacheStats terminalvaluestatistic()
+    {
+        return TERMINALCACHE.stats();
+    }
+
+    /**
+     * parses a terminal value as regular expression
+     *
+     * @param p_value data string
+     * @return grammar element
+     * @note package-private, so the uncached path can be benchmarked
+     */
+    @SuppressWarnings( "unchecked" )
+    static IGrammarElement parseterminalvalue( final String p_value )
+    {
         // try to compile string as regular expression pattern
         try
         {
-            return (IGrammarElement) new CASTVisitorPCRE().visit(
-                    new PCREParser(
-                            new CommonTokenStream(
-                                    new PCRELexer(
-                                            new ANTLRInputStream( new ByteArrayInputStream( Pattern.compile( p_value ).pattern().getBytes( "UTF-8" ) ) )
-                                    )
-                            )
-                    ).parse()
-            );
+            return (IGrammarElement) new CASTVisitorPCRE().visit( CGrammarParser.instance().pcre( Pattern.compile( p_value ).pattern() ) );
         }
-        catch ( final PatternSyntaxException | IOException l_exception )
+        catch ( final PatternSyntaxException l_exception )
         {
         }
 
@@ -24,6 +24,7 @@
 package de.flashpixx.rrd_antlr4.antlr;
 
 import java.text.MessageFormat;
+import java.util.Objects;
 
 
 /**
@@ -39,6 +40,10 @@ final class CGrammar implements IGrammarComplexElement
      * grammar documentation
      */
     private final String m_documentation;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
     /**
      * ctor
@@ -50,6 +55,7 @@ final class CGrammar implements IGrammarComplexElement
     {
         m_id = p_id;
         m_documentation = p_documentation == null ? "" : p_documentation;
+        m_hash = Objects.hash( m_id, m_documentation );
     }
 
     @Override
@@ -67,13 +73,15 @@ final class CGrammar implements IGrammarComplexElement
     @Override
     public final int hashCode()
     {
-        return m_id.hashCode();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object == null ) && ( p_object instanceof IGrammarComplexElement ) && ( this.hashCode() == p_object.hashCode() );
+        return ( this == p_object )
+               || ( ( p_object instanceof CGrammar ) && ( m_hash == p_object.hashCode() )
+                    && ( m_id.equals( ( (CGrammar) p_object ).m_id ) ) && ( m_documentation.equals( ( (CGrammar) p_object ).m_documentation ) ) );
     }
 
     @Override
@@ -93,4 +101,10 @@ final class CGrammar implements IGrammarComplexElement
     {
         return this;
     }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.grammar( this );
+    }
 }
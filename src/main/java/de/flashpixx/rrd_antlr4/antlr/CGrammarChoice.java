@@ -67,9 +67,21 @@ public final class CGrammarChoice extends IGrammarBaseCollection implements IGra
         super( p_cardinality, p_data );
     }
 
+    @Override
+    protected final IGrammarElement create( final ECardinality p_cardinality )
+    {
+        return new CGrammarChoice( p_cardinality, m_data );
+    }
+
     @Override
     public final String toString()
     {
         return MessageFormat.format( "Choice( {0} ){1}", StringUtils.join( m_data, ", " ), m_cardinality ).trim();
     }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.choice( this );
+    }
 }
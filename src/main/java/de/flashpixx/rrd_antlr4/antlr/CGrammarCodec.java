@@ -0,0 +1,763 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import de.flashpixx.rrd_antlr4.CCommon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+
+/**
+ * compact binary codec of the grammar model
+ *
+ * @note numbers are stored as unsigned variable-length integers
+ * and each string is stored once, any further occurrence is
+ * stored as index of the string table. Equal elements are also
+ * stored once, any further occurrence is stored as reference to
+ * the element table. A stream contains a sequence of models, each
+ * model is prefixed by a one and the sequence ends with a zero, so
+ * models can be written one after another without buffering.
+ */
+public final class CGrammarCodec
+{
+    /**
+     * format version, must be increased on any format change
+     */
+    public static final int VERSION = 2;
+    /**
+     * magic number of the format
+     */
+    private static final int MAGIC = 0x52524434;
+    /**
+     * maximum count of elements or bytes, so an input of unknown
+     * size cannot allocate more memory than the heap can hold
+     */
+    private static final int MAXIMUMCOUNT = Integer.MAX_VALUE / 16;
+    /**
+     * maximum size of buffers, which are allocated before the
+     * content is read, because counts of an input with unknown
+     * size are not trusted
+     */
+    private static final int MAXIMUMBUFFER = 4096;
+
+    /**
+     * ctor
+     */
+    private CGrammarCodec()
+    {
+    }
+
+    /**
+     * writes a grammar model
+     *
+     * @param p_model model
+     * @param p_stream output stream
+     * @throws IOException on io errors
+     */
+    public static void write( final IGrammarModel p_model, final OutputStream p_stream ) throws IOException
+    {
+        new CWriter( p_stream ).write( p_model ).finish();
+    }
+
+    /**
+     * reads the first grammar model
+     *
+     * @param p_stream input stream
+     * @return model
+     * @throws IOException on io errors or on an invalid format
+     */
+    public static IGrammarModel read( final InputStream p_stream ) throws IOException
+    {
+        return CGrammarCodec.read( p_stream, Long.MAX_VALUE );
+    }
+
+    /**
+     * reads the first grammar model of an input with known size,
+     * so lengths and counts are validated against the remaining input
+     *
+     * @param p_stream input stream
+     * @param p_size size of the input in bytes
+     * @return model
+     * @throws IOException on io errors or on an invalid format
+     */
+    public static IGrammarModel read( final InputStream p_stream, final long p_size ) throws IOException
+    {
+        final CDecoder l_decoder = CGrammarCodec.decoder( p_stream, p_size );
+        if ( l_decoder.number() != 1 )
+            throw CGrammarCodec.formaterror();
+
+        return l_decoder.model();
+    }
+
+    /**
+     * reads all grammar models
+     *
+     * @param p_stream input stream
+     * @return unmodifiable list with models
+     * @throws IOException on io errors or on an invalid format
+     */
+    public static List<IGrammarModel> readall( final InputStream p_stream ) throws IOException
+    {
+        final CDecoder l_decoder = CGrammarCodec.decoder( p_stream, Long.MAX_VALUE );
+        final List<IGrammarModel> l_models = new ArrayList<>();
+        for ( int l_next = l_decoder.number(); l_next != 0; l_next = l_decoder.number() )
+        {
+            if ( l_next != 1 )
+                throw CGrammarCodec.formaterror();
+            l_models.add( l_decoder.model() );
+        }
+
+        return Collections.unmodifiableList( l_models );
+    }
+
+    /**
+     * reads the header and creates the decoder
+     *
+     * @param p_stream input stream
+     * @param p_size size of the input in bytes
+     * @return decoder
+     * @throws IOException on io errors or on an invalid format
+     */
+    private static CDecoder decoder( final InputStream p_stream, final long p_size ) throws IOException
+    {
+        final CountingInputStream l_counter = new CountingInputStream( new BufferedInputStream( p_stream ) );
+        final DataInputStream l_input = new DataInputStream( l_counter );
+        if ( ( l_input.readInt() != MAGIC ) || ( l_input.readUnsignedByte() != VERSION ) )
+            throw CGrammarCodec.formaterror();
+
+        return new CDecoder( l_input, () -> p_size - l_counter.getCount() );
+    }
+
+    /**
+     * creates the exception of an invalid format
+     *
+     * @return exception
+     */
+    private static IOException formaterror()
+    {
+        return new IOException( CCommon.languagestring( CGrammarCodec.class, "format" ) );
+    }
+
+
+    /**
+     * streaming writer of grammar models, the string
+     * and element tables are shared by all models
+     */
+    public static final class CWriter implements Closeable
+    {
+        /**
+         * output
+         */
+        private final DataOutputStream m_output;
+        /**
+         * encoder
+         */
+        private final CEncoder m_encoder;
+        /**
+         * end of the sequence is written
+         */
+        private boolean m_finished;
+
+        /**
+         * ctor
+         *
+         * @param p_stream output stream
+         * @throws IOException on io errors
+         */
+        public CWriter( final OutputStream p_stream ) throws IOException
+        {
+            m_output = new DataOutputStream( new BufferedOutputStream( p_stream ) );
+            m_output.writeInt( MAGIC );
+            m_output.writeByte( VERSION );
+            m_encoder = new CEncoder( m_output );
+        }
+
+        /**
+         * writes a model
+         *
+         * @param p_model model
+         * @return self reference
+         * @throws IOException on io errors
+         */
+        public final CWriter write( final IGrammarModel p_model ) throws IOException
+        {
+            if ( m_finished )
+                throw new IOException( CCommon.languagestring( CGrammarCodec.class, "finished" ) );
+
+            m_encoder.number( 1 );
+            m_encoder.model( p_model );
+            return this;
+        }
+
+        /**
+         * writes the end of the sequence and flushes
+         * the output without closing the stream
+         *
+         * @throws IOException on io errors
+         */
+        public final void finish() throws IOException
+        {
+            if ( !m_finished )
+            {
+                m_encoder.number( 0 );
+                m_finished = true;
+            }
+            m_output.flush();
+        }
+
+        @Override
+        public final void close() throws IOException
+        {
+            try
+            {
+                this.finish();
+            }
+            finally
+            {
+                m_output.close();
+            }
+        }
+    }
+
+
+    /**
+     * element tags
+     */
+    private enum ETag
+    {
+        NULL,
+        TERMINALVALUE,
+        IDENTIFIER,
+        CHOICE,
+        SEQUENCE,
+        GROUP,
+        NEGATION,
+        RULE,
+        NONTERMINAL,
+        GRAMMAR,
+        REFERENCE;
+
+        /**
+         * tag of an element
+         *
+         * @param p_element element
+         * @return tag
+         * @throws IOException if element type is not supported
+         */
+        static ETag of( final IGrammarElement p_element ) throws IOException
+        {
+            if ( p_element == null )
+                return NULL;
+            if ( p_element instanceof IGrammarIdentifier )
+                return IDENTIFIER;
+            if ( p_element instanceof IGrammarSimpleElement<?> )
+                return TERMINALVALUE;
+            if ( p_element instanceof IGrammarRule )
+                return RULE;
+            if ( p_element instanceof IGrammarTerminal )
+                return NONTERMINAL;
+            if ( p_element instanceof IGrammarChoice )
+                return CHOICE;
+            if ( p_element instanceof IGrammarSequence )
+                return SEQUENCE;
+            if ( p_element instanceof IGrammarGroup )
+                return GROUP;
+            if ( p_element instanceof IGrammarNegation )
+                return NEGATION;
+            if ( p_element instanceof IGrammarComplexElement )
+                return GRAMMAR;
+
+            throw new IOException( CCommon.languagestring( CGrammarCodec.class, "unknownelement", p_element.getClass() ) );
+        }
+    }
+
+
+    /**
+     * encoder
+     */
+    private static final class CEncoder
+    {
+        /**
+         * output
+         */
+        private final DataOutputStream m_output;
+        /**
+         * string table
+         */
+        private final Map<String, Integer> m_strings = new HashMap<>();
+        /**
+         * element table
+         */
+        private final Map<IGrammarElement, Integer> m_elements = new HashMap<>();
+
+        /**
+         * ctor
+         *
+         * @param p_output output
+         */
+        CEncoder( final DataOutputStream p_output )
+        {
+            m_output = p_output;
+        }
+
+        /**
+         * writes a model
+         *
+         * @param p_model model
+         * @throws IOException on io errors
+         */
+        final void model( final IGrammarModel p_model ) throws IOException
+        {
+            this.element( p_model.grammar() );
+
+            this.number( p_model.rules().size() );
+            for ( final IGrammarComplexElement l_rule : p_model.rules() )
+                this.element( l_rule );
+
+            this.number( p_model.imports().size() );
+            for ( final String l_import : p_model.imports() )
+                this.string( l_import );
+        }
+
+        /**
+         * writes an element recursively
+         *
+         * @param p_element element
+         * @throws IOException on io errors
+         */
+        private void element( final IGrammarElement p_element ) throws IOException
+        {
+            final Integer l_index = p_element == null ? null : m_elements.get( p_element );
+            if ( l_index != null )
+            {
+                m_output.writeByte( ETag.REFERENCE.ordinal() );
+                this.number( l_index );
+                return;
+            }
+
+            final ETag l_tag = ETag.of( p_element );
+            m_output.writeByte( l_tag.ordinal() );
+            if ( l_tag == ETag.NULL )
+                return;
+
+            this.content( l_tag, p_element );
+            m_elements.put( p_element, m_elements.size() );
+        }
+
+        /**
+         * writes the content of an element
+         *
+         * @param p_tag tag of the element
+         * @param p_element element
+         * @throws IOException on io errors
+         */
+        private void content( final ETag p_tag, final IGrammarElement p_element ) throws IOException
+        {
+            m_output.writeByte( p_element.cardinality().ordinal() );
+            switch ( p_tag )
+            {
+                case IDENTIFIER:
+                case TERMINALVALUE:
+                    this.string( String.valueOf( ( (IGrammarSimpleElement<?>) p_element ).<Object>get() ) );
+                    return;
+
+                case CHOICE:
+                case SEQUENCE:
+                    this.number( ( (IGrammarCollection) p_element ).get().size() );
+                    for ( final IGrammarElement l_item : ( (IGrammarCollection) p_element ).get() )
+                        this.element( l_item );
+                    return;
+
+                case GROUP:
+                    this.element( ( (IGrammarGroup) p_element ).element() );
+                    return;
+
+                case NEGATION:
+                    this.element( ( (IGrammarNegation) p_element ).inner() );
+                    return;
+
+                case RULE:
+                    this.complex( (IGrammarComplexElement) p_element );
+                    this.element( ( (IGrammarRule) p_element ).children() );
+                    return;
+
+                case NONTERMINAL:
+                    this.complex( (IGrammarComplexElement) p_element );
+                    this.element( ( (IGrammarTerminal) p_element ).children() );
+                    return;
+
+                case GRAMMAR:
+                    this.complex( (IGrammarComplexElement) p_element );
+                    return;
+
+                default:
+                    throw new IOException( CCommon.languagestring( CGrammarCodec.class, "unknownelement", p_tag ) );
+            }
+        }
+
+        /**
+         * writes id and documentation
+         *
+         * @param p_element complex element
+         * @throws IOException on io errors
+         */
+        private void complex( final IGrammarComplexElement p_element ) throws IOException
+        {
+            this.string( p_element.id() );
+            this.string( p_element.documentation() );
+        }
+
+        /**
+         * writes a string with the string table
+         *
+         * @param p_string string
+         * @throws IOException on io errors
+         */
+        private void string( final String p_string ) throws IOException
+        {
+            final Integer l_index = m_strings.get( p_string );
+            if ( l_index != null )
+            {
+                this.number( l_index + 1 );
+                return;
+            }
+
+            final byte[] l_bytes = p_string.getBytes( StandardCharsets.UTF_8 );
+            this.number( 0 );
+            this.number( l_bytes.length );
+            m_output.write( l_bytes );
+            m_strings.put( p_string, m_strings.size() );
+        }
+
+        /**
+         * writes an unsigned variable-length integer
+         *
+         * @param p_value value
+         * @throws IOException on io errors
+         */
+        final void number( final int p_value ) throws IOException
+        {
+            int l_value = p_value;
+            while ( ( l_value & ~0x7f ) != 0 )
+            {
+                m_output.writeByte( ( l_value & 0x7f ) | 0x80 );
+                l_value >>>= 7;
+            }
+            m_output.writeByte( l_value );
+        }
+    }
+
+
+    /**
+     * decoder
+     */
+    private static final class CDecoder
+    {
+        /**
+         * input
+         */
+        private final DataInputStream m_input;
+        /**
+         * number of remaining bytes of the input
+         */
+        private final LongSupplier m_remaining;
+        /**
+         * string table
+         */
+        private final List<String> m_strings = new ArrayList<>();
+        /**
+         * element table
+         */
+        private final List<IGrammarElement> m_elements = new ArrayList<>();
+
+        /**
+         * ctor
+         *
+         * @param p_input input
+         * @param p_remaining number of remaining bytes of the input
+         */
+        CDecoder( final DataInputStream p_input, final LongSupplier p_remaining )
+        {
+            m_input = p_input;
+            m_remaining = p_remaining;
+        }
+
+        /**
+         * reads a model
+         *
+         * @return model
+         * @throws IOException on io errors
+         */
+        final IGrammarModel model() throws IOException
+        {
+            final IGrammarComplexElement l_grammar = this.complex();
+
+            final int l_rulecount = this.count();
+            final List<IGrammarComplexElement> l_rules = new ArrayList<>( Math.min( l_rulecount, MAXIMUMBUFFER ) );
+            for ( int i = 0; i < l_rulecount; i++ )
+                l_rules.add( this.complex() );
+
+            final int l_importcount = this.count();
+            final Set<String> l_imports = new LinkedHashSet<>();
+            for ( int i = 0; i < l_importcount; i++ )
+                l_imports.add( this.string() );
+
+            return new CGrammarModel( l_grammar, l_rules, l_imports );
+        }
+
+        /**
+         * reads a complex element of the grammar or of a rule
+         *
+         * @return element
+         * @throws IOException on io errors or if the element is not complex
+         */
+        private IGrammarComplexElement complex() throws IOException
+        {
+            final IGrammarElement l_element = this.element();
+            if ( !( l_element instanceof IGrammarComplexElement ) )
+                throw CGrammarCodec.formaterror();
+            return (IGrammarComplexElement) l_element;
+        }
+
+        /**
+         * reads an element recursively
+         *
+         * @return element or null
+         * @throws IOException on io errors
+         */
+        private IGrammarElement element() throws IOException
+        {
+            final ETag l_tag = this.enumvalue( ETag.values() );
+            if ( l_tag == ETag.NULL )
+                return null;
+
+            if ( l_tag == ETag.REFERENCE )
+            {
+                final int l_index = this.number();
+                if ( l_index >= m_elements.size() )
+                    throw CGrammarCodec.formaterror();
+                return m_elements.get( l_index );
+            }
+
+            final IGrammarElement l_element = this.content( l_tag );
+            m_elements.add( l_element );
+            return l_element;
+        }
+
+        /**
+         * reads the content of an element
+         *
+         * @param p_tag tag of the element
+         * @return element
+         * @throws IOException on io errors
+         */
+        private IGrammarElement content( final ETag p_tag ) throws IOException
+        {
+            final IGrammarElement.ECardinality l_cardinality = this.enumvalue( IGrammarElement.ECardinality.values() );
+            try
+            {
+                return this.create( p_tag, l_cardinality );
+            }
+            catch ( final IllegalArgumentException | NullPointerException l_exception )
+            {
+                // element constructors reject invalid values e.g. missing children
+                final IOException l_error = CGrammarCodec.formaterror();
+                l_error.initCause( l_exception );
+                throw l_error;
+            }
+        }
+
+        /**
+         * creates an element
+         *
+         * @param p_tag tag of the element
+         * @param p_cardinality cardinality of the element
+         * @return element
+         * @throws IOException on io errors
+         */
+        private IGrammarElement create( final ETag p_tag, final IGrammarElement.ECardinality p_cardinality ) throws IOException
+        {
+            switch ( p_tag )
+            {
+                case IDENTIFIER:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarIdentifier( p_cardinality, this.string() ) );
+
+                case TERMINALVALUE:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarTerminalValue<>( p_cardinality, this.string() ) );
+
+                case CHOICE:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarChoice( p_cardinality, this.elements() ) );
+
+                case SEQUENCE:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarSequence( p_cardinality, this.elements() ) );
+
+                case GROUP:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarGroup( p_cardinality, this.element() ) );
+
+                case NEGATION:
+                    return de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarNegation( p_cardinality, this.element() ) );
+
+                case RULE:
+                    return new CGrammarRule( this.string(), this.string(), this.element() );
+
+                case NONTERMINAL:
+                    return new CGrammarNonTerminal( this.string(), this.string(), p_cardinality, this.element() );
+
+                case GRAMMAR:
+                    return new CGrammar( this.string(), this.string() );
+
+                default:
+                    throw new IOException( CCommon.languagestring( CGrammarCodec.class, "unknownelement", p_tag ) );
+            }
+        }
+
+        /**
+         * reads a list of elements
+         *
+         * @return list
+         * @throws IOException on io errors
+         */
+        private List<IGrammarElement> elements() throws IOException
+        {
+            final int l_count = this.count();
+            final List<IGrammarElement> l_elements = new ArrayList<>( Math.min( l_count, MAXIMUMBUFFER ) );
+            for ( int i = 0; i < l_count; i++ )
+                l_elements.add( this.element() );
+            return l_elements;
+        }
+
+        /**
+         * reads an enum value by its ordinal
+         *
+         * @param p_values enum values
+         * @return enum value
+         * @throws IOException on io errors or invalid ordinal
+         * @tparam T enum type
+         */
+        private <T extends Enum<T>> T enumvalue( final T[] p_values ) throws IOException
+        {
+            final int l_ordinal = m_input.readUnsignedByte();
+            if ( l_ordinal >= p_values.length )
+                throw CGrammarCodec.formaterror();
+            return p_values[l_ordinal];
+        }
+
+        /**
+         * reads a string with the string table
+         *
+         * @return string
+         * @throws IOException on io errors
+         */
+        private String string() throws IOException
+        {
+            final int l_index = this.number();
+            if ( l_index > m_strings.size() )
+                throw CGrammarCodec.formaterror();
+            if ( l_index > 0 )
+                return m_strings.get( l_index - 1 );
+
+            final byte[] l_bytes = this.bytes( this.count() );
+            final String l_string = new String( l_bytes, StandardCharsets.UTF_8 );
+            m_strings.add( l_string );
+            return l_string;
+        }
+
+        /**
+         * reads bytes, large byte arrays are read in blocks,
+         * so the buffer grows only with the existing input
+         *
+         * @param p_count number of bytes
+         * @return byte array
+         * @throws IOException on io errors or on the end of the input
+         */
+        private byte[] bytes( final int p_count ) throws IOException
+        {
+            if ( p_count <= MAXIMUMBUFFER )
+            {
+                final byte[] l_bytes = new byte[p_count];
+                m_input.readFully( l_bytes );
+                return l_bytes;
+            }
+
+            final byte[] l_bytes = ByteStreams.toByteArray( ByteStreams.limit( m_input, p_count ) );
+            if ( l_bytes.length != p_count )
+                throw new EOFException();
+            return l_bytes;
+        }
+
+        /**
+         * reads a count of elements or bytes, each of them needs at
+         * least one byte, so the count must fit the remaining input
+         *
+         * @return count
+         * @throws IOException on io errors or on an invalid count
+         */
+        private int count() throws IOException
+        {
+            final int l_count = this.number();
+            if ( ( l_count < 0 ) || ( l_count > m_remaining.getAsLong() ) || ( l_count > MAXIMUMCOUNT ) )
+                throw CGrammarCodec.formaterror();
+            return l_count;
+        }
+
+        /**
+         * reads an unsigned variable-length integer
+         *
+         * @return value
+         * @throws IOException on io errors
+         */
+        final int number() throws IOException
+        {
+            int l_value = 0;
+            for ( int l_shift = 0; l_shift < 32; l_shift += 7 )
+            {
+                final int l_byte = m_input.readUnsignedByte();
+                l_value |= ( l_byte & 0x7f ) << l_shift;
+                if ( ( l_byte & 0x80 ) == 0 )
+                    return l_value;
+            }
+            throw CGrammarCodec.formaterror();
+        }
+    }
+
+}
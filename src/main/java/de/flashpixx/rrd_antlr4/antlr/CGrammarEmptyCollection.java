@@ -66,13 +66,13 @@ final class CGrammarEmptyCollection implements IGrammarCollection
     @Override
     public final int hashCode()
     {
-        return INSTANCE.hashCode();
+        return 0;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarCollection ) && ( this.hashCode() == p_object.hashCode() );
+        return p_object instanceof CGrammarEmptyCollection;
     }
 
     @Override
@@ -80,4 +80,10 @@ final class CGrammarEmptyCollection implements IGrammarCollection
     {
         return "";
     }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.empty( this );
+    }
 }
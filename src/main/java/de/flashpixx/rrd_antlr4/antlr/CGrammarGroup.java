@@ -27,6 +27,7 @@ import de.flashpixx.rrd_antlr4.CCommon;
 import org.apache.commons.lang3.StringUtils;
 
 import java.text.MessageFormat;
+import java.util.Objects;
 
 
 /**
@@ -41,7 +42,11 @@ public final class CGrammarGroup implements IGrammarGroup
     /**
      * cardinality
      */
-    private ECardinality m_cardinality;
+    private final ECardinality m_cardinality;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
 
     /**
@@ -51,11 +56,7 @@ public final class CGrammarGroup implements IGrammarGroup
      */
     public CGrammarGroup( final IGrammarElement p_element )
     {
-        m_element = p_element;
-        m_cardinality = ECardinality.NONE;
-
-        if ( m_element == null )
-            throw new IllegalArgumentException( CCommon.languagestring( this, "empty" ) );
+        this( ECardinality.NONE, p_element );
     }
 
     /**
@@ -71,6 +72,8 @@ public final class CGrammarGroup implements IGrammarGroup
 
         if ( m_element == null )
             throw new IllegalArgumentException( CCommon.languagestring( this, "empty" ) );
+
+        m_hash = Objects.hash( m_cardinality.name(), m_element );
     }
 
     @Override
@@ -88,8 +91,9 @@ public final class CGrammarGroup implements IGrammarGroup
     @Override
     public final IGrammarElement cardinality( final ECardinality p_cardinality )
     {
-        m_cardinality = p_cardinality;
-        return this;
+        return p_cardinality == m_cardinality
+               ? this
+               : de.flashpixx.rrd_antlr4.antlr.CCommon.intern( new CGrammarGroup( p_cardinality, m_element ) );
     }
 
     @Override
@@ -101,12 +105,20 @@ public final class CGrammarGroup implements IGrammarGroup
     @Override
     public final int hashCode()
     {
-        return m_element.hashCode() + m_cardinality.hashCode();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarGroup ) && ( this.hashCode() == p_object.hashCode() );
+        return ( this == p_object )
+               || ( ( p_object instanceof CGrammarGroup ) && ( m_hash == p_object.hashCode() )
+                    && ( m_cardinality == ( (CGrammarGroup) p_object ).m_cardinality ) && ( m_element.equals( ( (CGrammarGroup) p_object ).m_element ) ) );
+    }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.group( this );
     }
 }
@@ -36,6 +36,29 @@ public final class CGrammarIdentifier extends CGrammarTerminalValue<String> impl
      */
     public CGrammarIdentifier( final String p_value )
     {
-        super( ECardinality.NONE, p_value );
+        this( ECardinality.NONE, p_value );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cardinality cardinality
+     * @param p_value value
+     */
+    public CGrammarIdentifier( final ECardinality p_cardinality, final String p_value )
+    {
+        super( p_cardinality, p_value );
+    }
+
+    @Override
+    protected final IGrammarElement create( final ECardinality p_cardinality )
+    {
+        return new CGrammarIdentifier( p_cardinality, this.<String>get() );
+    }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.identifier( this );
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * immutable grammar model
+ */
+final class CGrammarModel implements IGrammarModel
+{
+    /**
+     * grammar
+     */
+    private final IGrammarComplexElement m_grammar;
+    /**
+     * rules
+     */
+    private final List<IGrammarComplexElement> m_rules;
+    /**
+     * imported grammar names
+     */
+    private final Set<String> m_imports;
+
+    /**
+     * ctor
+     *
+     * @param p_grammar grammar
+     * @param p_rules rules
+     * @param p_imports imported grammar names
+     */
+    CGrammarModel( final IGrammarComplexElement p_grammar, final List<IGrammarComplexElement> p_rules, final Set<String> p_imports )
+    {
+        m_grammar = p_grammar;
+        m_rules = Collections.unmodifiableList( new ArrayList<>( p_rules ) );
+        m_imports = Collections.unmodifiableSet( new LinkedHashSet<>( p_imports ) );
+    }
+
+    @Override
+    public final IGrammarComplexElement grammar()
+    {
+        return m_grammar;
+    }
+
+    @Override
+    public final List<IGrammarComplexElement> rules()
+    {
+        return m_rules;
+    }
+
+    @Override
+    public final Set<String> imports()
+    {
+        return m_imports;
+    }
+
+    @Override
+    public final String toString()
+    {
+        return MessageFormat.format( "Model( {0} : {1} ) {2}", m_grammar, m_rules, m_imports ).trim();
+    }
+}
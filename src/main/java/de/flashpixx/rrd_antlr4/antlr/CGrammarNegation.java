@@ -24,6 +24,7 @@
 package de.flashpixx.rrd_antlr4.antlr;
 
 import java.text.MessageFormat;
+import java.util.Objects;
 
 
 /**
@@ -39,7 +40,11 @@ public final class CGrammarNegation implements IGrammarNegation
     /**
      * cardinality
      */
-    private ECardinality m_cardinality;
+    private final ECardinality m_cardinality;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
     /**
      * ctor
@@ -61,6 +66,7 @@ public final class CGrammarNegation implements IGrammarNegation
     {
         m_element = p_element;
         m_cardinality = p_cardinality;
+        m_hash = Objects.hash( m_cardinality.name(), m_element ) + 37991;
     }
 
 
@@ -79,20 +85,23 @@ public final class CGrammarNegation implements IGrammarNegation
     @Override
     public final IGrammarElement cardinality( final ECardinality p_cardinality )
     {
-        m_cardinality = p_cardinality;
-        return this;
+        return p_cardinality == m_cardinality
+               ? this
+               : CCommon.intern( new CGrammarNegation( p_cardinality, m_element ) );
     }
 
     @Override
     public final int hashCode()
     {
-        return m_element.hashCode() + 37991;
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarNegation ) && ( this.hashCode() == p_object.hashCode() );
+        return ( this == p_object )
+               || ( ( p_object instanceof CGrammarNegation ) && ( m_hash == p_object.hashCode() )
+                    && ( m_cardinality == ( (CGrammarNegation) p_object ).m_cardinality ) && ( Objects.equals( m_element, ( (CGrammarNegation) p_object ).m_element ) ) );
     }
 
     @Override
@@ -100,4 +109,10 @@ public final class CGrammarNegation implements IGrammarNegation
     {
         return MessageFormat.format( "Negation( {0} ){1}", m_element, m_cardinality ).trim();
     }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.negation( this );
+    }
 }
@@ -24,6 +24,7 @@
 package de.flashpixx.rrd_antlr4.antlr;
 
 import java.text.MessageFormat;
+import java.util.Objects;
 
 
 /**
@@ -38,7 +39,7 @@ public final class CGrammarNonTerminal implements IGrammarTerminal
     /**
      * cardinality
      */
-    private ECardinality m_cardinality;
+    private final ECardinality m_cardinality;
     /**
      * documentation string
      */
@@ -47,6 +48,10 @@ public final class CGrammarNonTerminal implements IGrammarTerminal
      * elements
      */
     private final IGrammarElement m_element;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
     /**
      * ctor
@@ -76,6 +81,7 @@ public final class CGrammarNonTerminal implements IGrammarTerminal
         m_element = p_element;
         m_cardinality = p_cardinality;
         m_documentation = p_documentation == null ? "" : p_documentation;
+        m_hash = Objects.hash( m_id, m_documentation, m_cardinality.name(), m_element );
     }
 
     @Override
@@ -99,13 +105,21 @@ public final class CGrammarNonTerminal implements IGrammarTerminal
     @Override
     public final int hashCode()
     {
-        return m_id.hashCode();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarTerminal ) && ( this.hashCode() == p_object.hashCode() );
+        if ( this == p_object )
+            return true;
+
+        if ( ( p_object == null ) || ( !( p_object instanceof CGrammarNonTerminal ) ) || ( m_hash != p_object.hashCode() ) )
+            return false;
+
+        final CGrammarNonTerminal l_other = (CGrammarNonTerminal) p_object;
+        return ( m_cardinality == l_other.m_cardinality ) && ( m_id.equals( l_other.m_id ) ) && ( m_documentation.equals( l_other.m_documentation ) )
+               && ( Objects.equals( m_element, l_other.m_element ) );
     }
 
     @Override
@@ -129,7 +143,14 @@ public final class CGrammarNonTerminal implements IGrammarTerminal
     @Override
     public final IGrammarElement cardinality( final ECardinality p_cardinality )
     {
-        m_cardinality = p_cardinality;
-        return this;
+        return p_cardinality == m_cardinality
+               ? this
+               : CCommon.intern( new CGrammarNonTerminal( m_id, m_documentation, p_cardinality, m_element ) );
+    }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.terminal( this );
     }
 }
@@ -0,0 +1,278 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * thread-local front end of the grammar and regular expression parsers
+ *
+ * @note the lexer, token stream and parser instances of a thread are reset
+ * with new input instead of creating new instances for each grammar file. The
+ * DFA caches of the generated lexers and parsers are static and shared by all
+ * instances, they grow with the parsed input and can be cleared. Grammars are
+ * parsed with the faster SLL prediction first, only if it fails the grammar is
+ * parsed again with full LL prediction, which reports the syntax errors.
+ */
+public final class CGrammarParser
+{
+    /**
+     * parser of the current thread
+     */
+    private static final ThreadLocal<CGrammarParser> INSTANCE = ThreadLocal.withInitial( CGrammarParser::new );
+    /**
+     * number of grammars parsed with SLL prediction
+     */
+    private static final LongAdder SLLPARSES = new LongAdder();
+    /**
+     * number of grammars parsed again with LL prediction
+     */
+    private static final LongAdder LLFALLBACKS = new LongAdder();
+    /**
+     * grammar lexer
+     */
+    private final ANTLRv4Lexer m_lexer = new ANTLRv4Lexer( null );
+    /**
+     * grammar token stream
+     */
+    private final CommonTokenStream m_tokens = new CommonTokenStream( m_lexer );
+    /**
+     * grammar parser
+     */
+    private final ANTLRv4Parser m_parser = new ANTLRv4Parser( null );
+    /**
+     * error strategy of the SLL stage, the strategy
+     * stores the recovery state, so it is not shared
+     */
+    private final ANTLRErrorStrategy m_sllerrors = new BailErrorStrategy();
+    /**
+     * regular expression lexer
+     */
+    private final PCRELexer m_pcrelexer = new PCRELexer( null );
+    /**
+     * regular expression token stream
+     */
+    private final CommonTokenStream m_pcretokens = new CommonTokenStream( m_pcrelexer );
+    /**
+     * regular expression parser
+     */
+    private final PCREParser m_pcreparser = new PCREParser( null );
+
+    /**
+     * ctor
+     */
+    private CGrammarParser()
+    {
+    }
+
+    /**
+     * returns the parser of the current thread
+     *
+     * @return parser
+     */
+    public static CGrammarParser instance()
+    {
+        return INSTANCE.get();
+    }
+
+    /**
+     * lexes a grammar, the tokens are read completely
+     *
+     * @param p_input grammar input e.g. created with CharStreams.fromPath
+     * @return self reference
+     */
+    public final CGrammarParser lex( final CharStream p_input )
+    {
+        m_lexer.setInputStream( p_input );
+        m_tokens.setTokenSource( m_lexer );
+        m_tokens.fill();
+        return this;
+    }
+
+    /**
+     * parses the lexed grammar with SLL prediction
+     * and on failure with LL prediction
+     *
+     * @return parse tree
+     */
+    public final ANTLRv4Parser.GrammarSpecContext parse()
+    {
+        final ANTLRv4Parser.GrammarSpecContext l_tree = this.sll();
+        return l_tree == null ? this.ll() : l_tree;
+    }
+
+    /**
+     * parses the lexed grammar with SLL prediction,
+     * which stops on the first syntax error
+     *
+     * @return parse tree or null if SLL prediction fails
+     */
+    public final ANTLRv4Parser.GrammarSpecContext sll()
+    {
+        m_parser.setTokenStream( m_tokens );
+        m_parser.removeErrorListeners();
+        m_parser.setErrorHandler( m_sllerrors );
+        m_parser.getInterpreter().setPredictionMode( PredictionMode.SLL );
+
+        try
+        {
+            final ANTLRv4Parser.GrammarSpecContext l_tree = m_parser.grammarSpec();
+            SLLPARSES.increment();
+            return l_tree;
+        }
+        catch ( final ParseCancellationException l_exception )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * parses the lexed grammar with LL prediction
+     * and reports syntax errors
+     *
+     * @return parse tree
+     */
+    public final ANTLRv4Parser.GrammarSpecContext ll()
+    {
+        LLFALLBACKS.increment();
+        m_tokens.seek( 0 );
+        m_parser.setTokenStream( m_tokens );
+        m_parser.removeErrorListeners();
+        m_parser.addErrorListener( ConsoleErrorListener.INSTANCE );
+        m_parser.setErrorHandler( new DefaultErrorStrategy() );
+        m_parser.getInterpreter().setPredictionMode( PredictionMode.LL );
+
+        return m_parser.grammarSpec();
+    }
+
+    /**
+     * returns the number of grammars, which are parsed with SLL
+     * prediction and which are parsed again with LL prediction
+     *
+     * @return pair with SLL parses and LL fallbacks
+     */
+    public static Pair<Long, Long> statistic()
+    {
+        return new ImmutablePair<>( SLLPARSES.sum(), LLFALLBACKS.sum() );
+    }
+
+    /**
+     * releases the input and tokens of the last grammar,
+     * so they are not referenced by the thread
+     */
+    public final void release()
+    {
+        m_parser.setTokenStream( null );
+        m_lexer.setInputStream( null );
+        m_tokens.setTokenSource( m_lexer );
+    }
+
+    /**
+     * parses a regular expression
+     *
+     * @param p_expression regular expression
+     * @return parse tree
+     */
+    final PCREParser.ParseContext pcre( final String p_expression )
+    {
+        m_pcrelexer.setInputStream( CharStreams.fromString( p_expression ) );
+        m_pcretokens.setTokenSource( m_pcrelexer );
+        m_pcreparser.setTokenStream( m_pcretokens );
+        try
+        {
+            return m_pcreparser.parse();
+        }
+        finally
+        {
+            m_pcreparser.setTokenStream( null );
+            m_pcrelexer.setInputStream( null );
+            m_pcretokens.setTokenSource( m_pcrelexer );
+        }
+    }
+
+    /**
+     * clears the shared DFA caches of all lexers and parsers,
+     * parsing is slower until the caches are rebuilt
+     */
+    public static void clear()
+    {
+        final CGrammarParser l_parser = INSTANCE.get();
+        l_parser.m_lexer.getInterpreter().clearDFA();
+        l_parser.m_parser.getInterpreter().clearDFA();
+        l_parser.m_pcrelexer.getInterpreter().clearDFA();
+        l_parser.m_pcreparser.getInterpreter().clearDFA();
+    }
+
+    /**
+     * clears the shared DFA caches if the used heap after the
+     * last garbage collection exceeds a ratio of the maximum heap
+     *
+     * @param p_ratio ratio of the used to the maximum heap within (0,1], other values disable the clearing
+     * @return caches are cleared
+     * @note the used heap after the garbage collection contains only reachable objects, so
+     * uncollected garbage does not clear the caches, the caches must not be cleared while
+     * a grammar file is parsed, because the caches are replaced without synchronization
+     */
+    public static boolean clear( final double p_ratio )
+    {
+        if ( ( p_ratio <= 0 ) || ( p_ratio > 1 ) )
+            return false;
+
+        long l_used = 0;
+        long l_maximum = 0;
+        for ( final MemoryPoolMXBean l_pool : ManagementFactory.getMemoryPoolMXBeans() )
+        {
+            final MemoryUsage l_collected = l_pool.getType() == MemoryType.HEAP ? l_pool.getCollectionUsage() : null;
+            if ( ( l_collected == null ) || ( l_pool.getUsage().getMax() <= 0 ) )
+                continue;
+
+            l_used += l_collected.getUsed();
+            l_maximum += l_pool.getUsage().getMax();
+        }
+
+        if ( ( l_maximum <= 0 ) || ( l_used < p_ratio * l_maximum ) )
+            return false;
+
+        CGrammarParser.clear();
+        return true;
+    }
+
+}
@@ -26,6 +26,7 @@ package de.flashpixx.rrd_antlr4.antlr;
 import de.flashpixx.rrd_antlr4.CCommon;
 
 import java.text.MessageFormat;
+import java.util.Objects;
 
 
 /**
@@ -45,6 +46,10 @@ public final class CGrammarRule implements IGrammarRule
      * elements
      */
     private final IGrammarElement m_element;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
     /**
      * ctor
@@ -61,6 +66,8 @@ public final class CGrammarRule implements IGrammarRule
 
         if ( m_element == null )
             throw new IllegalArgumentException( CCommon.languagestring( this, "empty" ) );
+
+        m_hash = Objects.hash( m_id, m_documentation, m_element );
     }
 
 
@@ -81,13 +88,20 @@ public final class CGrammarRule implements IGrammarRule
     @Override
     public final int hashCode()
     {
-        return m_id.hashCode();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarRule ) && ( this.hashCode() == p_object.hashCode() );
+        if ( this == p_object )
+            return true;
+
+        if ( ( p_object == null ) || ( !( p_object instanceof CGrammarRule ) ) || ( m_hash != p_object.hashCode() ) )
+            return false;
+
+        final CGrammarRule l_other = (CGrammarRule) p_object;
+        return ( m_id.equals( l_other.m_id ) ) && ( m_documentation.equals( l_other.m_documentation ) ) && ( m_element.equals( l_other.m_element ) );
     }
 
     @Override
@@ -118,4 +132,10 @@ public final class CGrammarRule implements IGrammarRule
     {
         return this;
     }
+
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.rule( this );
+    }
 }
@@ -67,10 +67,21 @@ public final class CGrammarSequence extends IGrammarBaseCollection implements IG
         super( p_cardinality, p_data );
     }
 
+    @Override
+    protected final IGrammarElement create( final ECardinality p_cardinality )
+    {
+        return new CGrammarSequence( p_cardinality, m_data );
+    }
+
     @Override
     public final String toString()
     {
         return MessageFormat.format( "Sequence( {0} ){1}", StringUtils.join( m_data, ", " ), m_cardinality ).trim();
     }
 
+    @Override
+    public final <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.sequence( this );
+    }
 }
@@ -27,10 +27,13 @@ import de.flashpixx.rrd_antlr4.CCommon;
 
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.Objects;
 
 
 /**
  * stores any terminal value
+ *
+ * @note the element is immutable, the hash code is calculated once
  */
 public class CGrammarTerminalValue<T> implements IGrammarSimpleElement<T>
 {
@@ -41,7 +44,11 @@ public class CGrammarTerminalValue<T> implements IGrammarSimpleElement<T>
     /**
      * cardinality
      */
-    private ECardinality m_cardinality;
+    private final ECardinality m_cardinality;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
     /**
      * ctor
@@ -66,6 +73,8 @@ public class CGrammarTerminalValue<T> implements IGrammarSimpleElement<T>
 
         if ( m_value == null )
             throw new IllegalArgumentException( CCommon.languagestring( CGrammarTerminalValue.class, "empty" ) );
+
+        m_hash = Objects.hash( this.getClass().getName(), m_cardinality.name(), m_value );
     }
 
     @Override
@@ -78,13 +87,17 @@ public class CGrammarTerminalValue<T> implements IGrammarSimpleElement<T>
     @Override
     public final int hashCode()
     {
-        return m_value.hashCode();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarSimpleElement<?> ) && ( m_value.hashCode() == p_object.hashCode() );
+        if ( this == p_object )
+            return true;
+
+        return ( p_object != null ) && ( this.getClass().equals( p_object.getClass() ) ) && ( m_hash == p_object.hashCode() )
+               && ( m_cardinality == ( (CGrammarTerminalValue<?>) p_object ).m_cardinality ) && ( m_value.equals( ( (CGrammarTerminalValue<?>) p_object ).m_value ) );
     }
 
     @Override
@@ -108,7 +121,25 @@ public class CGrammarTerminalValue<T> implements IGrammarSimpleElement<T>
     @Override
     public final IGrammarElement cardinality( final ECardinality p_cardinality )
     {
-        m_cardinality = p_cardinality;
-        return this;
+        return p_cardinality == m_cardinality
+               ? this
+               : de.flashpixx.rrd_antlr4.antlr.CCommon.intern( this.create( p_cardinality ) );
+    }
+
+    /**
+     * creates a copy of the element with another cardinality
+     *
+     * @param p_cardinality cardinality
+     * @return new element
+     */
+    protected IGrammarElement create( final ECardinality p_cardinality )
+    {
+        return new CGrammarTerminalValue<>( p_cardinality, m_value );
+    }
+
+    @Override
+    public <R> R accept( final IGrammarVisitor<R> p_visitor )
+    {
+        return p_visitor.terminalvalue( this );
     }
 }
@@ -0,0 +1,189 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import de.flashpixx.rrd_antlr4.CCommon;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * character stream of an ASCII file, which reads the code
+ * points directly from the memory-mapped file content
+ *
+ * @note each byte is a code point, so the stream must only be used
+ * if the content is pure ASCII, files with other characters must
+ * be decoded e.g. with CharStreams.fromPath
+ */
+public final class CMappedCharStream implements CharStream
+{
+    /**
+     * file content
+     */
+    private final ByteBuffer m_buffer;
+    /**
+     * source name
+     */
+    private final String m_name;
+    /**
+     * number of code points
+     */
+    private final int m_size;
+    /**
+     * current position
+     */
+    private int m_position;
+
+    /**
+     * ctor
+     *
+     * @param p_buffer ASCII content
+     * @param p_name source name
+     */
+    public CMappedCharStream( final ByteBuffer p_buffer, final String p_name )
+    {
+        m_buffer = p_buffer.duplicate();
+        m_name = p_name;
+        m_size = m_buffer.remaining();
+    }
+
+    /**
+     * maps a file read-only into memory, the mapping
+     * is valid after the file channel is closed
+     *
+     * @param p_file file
+     * @return mapped content
+     * @throws IOException on io errors or if the file is larger than 2 GiB
+     */
+    public static ByteBuffer map( final Path p_file ) throws IOException
+    {
+        try
+            (
+                final FileChannel l_channel = FileChannel.open( p_file, StandardOpenOption.READ )
+            )
+        {
+            if ( l_channel.size() > Integer.MAX_VALUE )
+                throw new IOException( CCommon.languagestring( CMappedCharStream.class, "size", p_file, l_channel.size() ) );
+
+            return l_channel.map( FileChannel.MapMode.READ_ONLY, 0, l_channel.size() );
+        }
+    }
+
+    /**
+     * checks if the content is pure ASCII
+     *
+     * @param p_buffer content
+     * @return ASCII flag
+     */
+    public static boolean ascii( final ByteBuffer p_buffer )
+    {
+        for ( int i = p_buffer.position(); i < p_buffer.limit(); i++ )
+            if ( p_buffer.get( i ) < 0 )
+                return false;
+        return true;
+    }
+
+    @Override
+    public final String getText( final Interval p_interval )
+    {
+        final int l_start = Math.min( p_interval.a, m_size );
+        final int l_length = Math.min( p_interval.b - p_interval.a + 1, m_size - l_start );
+        if ( l_length <= 0 )
+            return "";
+
+        final byte[] l_text = new byte[l_length];
+        ( (ByteBuffer) m_buffer.duplicate().position( m_buffer.position() + l_start ) ).get( l_text );
+        return new String( l_text, StandardCharsets.US_ASCII );
+    }
+
+    @Override
+    public final void consume()
+    {
+        if ( m_position >= m_size )
+            throw new IllegalStateException( "cannot consume EOF" );
+        m_position++;
+    }
+
+    @Override
+    public final int LA( final int p_offset )
+    {
+        if ( p_offset == 0 )
+            return 0;
+
+        final int l_index = p_offset < 0 ? m_position + p_offset : m_position + p_offset - 1;
+        return ( l_index < 0 ) || ( l_index >= m_size )
+               ? IntStream.EOF
+               : m_buffer.get( m_buffer.position() + l_index );
+    }
+
+    @Override
+    public final int mark()
+    {
+        return -1;
+    }
+
+    @Override
+    public final void release( final int p_marker )
+    {
+    }
+
+    @Override
+    public final int index()
+    {
+        return m_position;
+    }
+
+    @Override
+    public final void seek( final int p_index )
+    {
+        m_position = p_index;
+    }
+
+    @Override
+    public final int size()
+    {
+        return m_size;
+    }
+
+    @Override
+    public final String getSourceName()
+    {
+        return ( m_name == null ) || ( m_name.isEmpty() ) ? IntStream.UNKNOWN_SOURCE_NAME : m_name;
+    }
+
+    @Override
+    public final String toString()
+    {
+        return this.getText( Interval.of( 0, m_size - 1 ) );
+    }
+
+}
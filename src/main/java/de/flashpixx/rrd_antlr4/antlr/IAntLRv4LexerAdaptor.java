@@ -66,6 +66,14 @@ public abstract class IAntLRv4LexerAdaptor extends Lexer
         this._currentRuleType = ruleType;
     }
 
+    @Override
+    public void reset()
+    {
+        // the lexer is reused with new input, so the rule state is reset
+        _currentRuleType = Token.INVALID_TYPE;
+        super.reset();
+    }
+
     @Override
     public Token emit()
     {
@@ -28,11 +28,14 @@ import de.flashpixx.rrd_antlr4.CCommon;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 
 /**
  * abstract class for collection
+ *
+ * @note the collection is immutable, the hash code is calculated once
  */
 public abstract class IGrammarBaseCollection implements IGrammarCollection
 {
@@ -43,7 +46,11 @@ public abstract class IGrammarBaseCollection implements IGrammarCollection
     /**
      * cardinality
      */
-    protected ECardinality m_cardinality;
+    protected final ECardinality m_cardinality;
+    /**
+     * hash code
+     */
+    private final int m_hash;
 
 
     /**
@@ -60,6 +67,7 @@ public abstract class IGrammarBaseCollection implements IGrammarCollection
 
         m_data = Collections.unmodifiableList( p_data.stream().filter( i -> i != null ).collect( Collectors.toList() ) );
         m_cardinality = p_cardinality;
+        m_hash = Objects.hash( this.getClass().getName(), m_cardinality.name(), m_data );
     }
 
     @Override
@@ -77,19 +85,32 @@ public abstract class IGrammarBaseCollection implements IGrammarCollection
     @Override
     public final IGrammarElement cardinality( final ECardinality p_cardinality )
     {
-        m_cardinality = p_cardinality;
-        return this;
+        return p_cardinality == m_cardinality
+               ? this
+               : de.flashpixx.rrd_antlr4.antlr.CCommon.intern( this.create( p_cardinality ) );
     }
 
     @Override
     public final int hashCode()
     {
-        return m_cardinality.hashCode() + m_data.stream().mapToInt( i -> i.hashCode() ).sum();
+        return m_hash;
     }
 
     @Override
     public final boolean equals( final Object p_object )
     {
-        return ( p_object != null ) && ( p_object instanceof IGrammarCollection ) && this.hashCode() == p_object.hashCode();
+        if ( this == p_object )
+            return true;
+
+        return ( p_object != null ) && ( this.getClass().equals( p_object.getClass() ) ) && ( m_hash == p_object.hashCode() )
+               && ( m_cardinality == ( (IGrammarBaseCollection) p_object ).m_cardinality ) && ( m_data.equals( ( (IGrammarBaseCollection) p_object ).m_data ) );
     }
+
+    /**
+     * creates a copy of the collection with another cardinality
+     *
+     * @param p_cardinality cardinality
+     * @return new collection
+     */
+    protected abstract IGrammarElement create( final ECardinality p_cardinality );
 }
@@ -39,10 +39,19 @@ public interface IGrammarElement
      * changes the cardinality
      *
      * @param p_cardinality cardinality value
-     * @return self reference
+     * @return element with the cardinality
      */
     IGrammarElement cardinality( final ECardinality p_cardinality );
 
+    /**
+     * dispatches the element to a visitor
+     *
+     * @param p_visitor visitor
+     * @tparam R return type
+     * @return visitor result
+     */
+    <R> R accept( final IGrammarVisitor<R> p_visitor );
+
     /**
      * enum define cardinalities
      */
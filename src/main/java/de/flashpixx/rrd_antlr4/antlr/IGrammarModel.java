@@ -0,0 +1,58 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * parsed model of a single grammar file,
+ * which is shared between all templates
+ */
+public interface IGrammarModel
+{
+
+    /**
+     * returns the grammar definition
+     *
+     * @return grammar
+     */
+    IGrammarComplexElement grammar();
+
+    /**
+     * returns the rules in definition order
+     *
+     * @return unmodifiable list with rules
+     */
+    List<IGrammarComplexElement> rules();
+
+    /**
+     * returns the names of the imported grammars
+     *
+     * @return unmodifiable set with grammar names
+     */
+    Set<String> imports();
+
+}
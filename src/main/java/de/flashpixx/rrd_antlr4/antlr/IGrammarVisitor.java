@@ -0,0 +1,115 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.antlr;
+
+
+/**
+ * visitor of the grammar elements
+ *
+ * @tparam T return type
+ */
+public interface IGrammarVisitor<T>
+{
+
+    /**
+     * visits a grammar definition
+     *
+     * @param p_element grammar
+     * @return result
+     */
+    T grammar( final IGrammarComplexElement p_element );
+
+    /**
+     * visits a rule
+     *
+     * @param p_element rule
+     * @return result
+     */
+    T rule( final IGrammarRule p_element );
+
+    /**
+     * visits a terminal
+     *
+     * @param p_element terminal
+     * @return result
+     */
+    T terminal( final IGrammarTerminal p_element );
+
+    /**
+     * visits an identifier
+     *
+     * @param p_element identifier
+     * @return result
+     */
+    T identifier( final IGrammarIdentifier p_element );
+
+    /**
+     * visits a terminal value
+     *
+     * @param p_element terminal value
+     * @return result
+     */
+    T terminalvalue( final IGrammarSimpleElement<?> p_element );
+
+    /**
+     * visits a negation
+     *
+     * @param p_element negation
+     * @return result
+     */
+    T negation( final IGrammarNegation p_element );
+
+    /**
+     * visits a group
+     *
+     * @param p_element group
+     * @return result
+     */
+    T group( final IGrammarGroup p_element );
+
+    /**
+     * visits a choice
+     *
+     * @param p_element choice
+     * @return result
+     */
+    T choice( final IGrammarChoice p_element );
+
+    /**
+     * visits a sequence
+     *
+     * @param p_element sequence
+     * @return result
+     */
+    T sequence( final IGrammarSequence p_element );
+
+    /**
+     * visits an empty collection
+     *
+     * @param p_element collection
+     * @return result
+     */
+    T empty( final IGrammarCollection p_element );
+
+}
@@ -23,25 +23,44 @@
 
 package de.flashpixx.rrd_antlr4.engine;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import de.flashpixx.rrd_antlr4.CCommon;
-import de.flashpixx.rrd_antlr4.antlr.ANTLRv4Lexer;
 import de.flashpixx.rrd_antlr4.antlr.ANTLRv4Parser;
 import de.flashpixx.rrd_antlr4.antlr.CASTVisitorAntLR;
-import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarParser;
+import de.flashpixx.rrd_antlr4.antlr.CMappedCharStream;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
 import de.flashpixx.rrd_antlr4.engine.template.ITemplate;
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -51,6 +70,162 @@ import java.util.stream.Stream;
  */
 public final class CEngine
 {
+    /**
+     * default file size in bytes from which grammar files are memory-mapped
+     */
+    public static final long DEFAULTMAPTHRESHOLD = 1024 * 1024;
+    /**
+     * model cache or null if caching is disabled
+     */
+    private final CModelCache m_cache;
+    /**
+     * static assets are written once into the template root directory
+     */
+    private final boolean m_sharedassets;
+    /**
+     * shared assets directories which are written
+     */
+    private final Set<Path> m_assets = ConcurrentHashMap.newKeySet();
+    /**
+     * models of the grammar files with documentation clean rules,
+     * so each grammar file is parsed once by the engine
+     */
+    private final Cache<Pair<File, Set<String>>, IGrammarModel> m_models = CacheBuilder.newBuilder().build();
+    /**
+     * metrics
+     */
+    private final CMetrics m_metrics;
+    /**
+     * ratio of the used to the maximum heap, which clears the DFA caches of the parser
+     */
+    private final double m_dfaclear;
+    /**
+     * minimum number of rules of a grammar, which are converted in parallel
+     */
+    private final int m_parallelrules;
+    /**
+     * file size in bytes from which grammar files are memory-mapped
+     */
+    private final long m_mapthreshold;
+
+    /**
+     * ctor
+     */
+    public CEngine()
+    {
+        this( null, false );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cache model cache or null
+     * @param p_sharedassets static assets are written once into the template root directory
+     */
+    public CEngine( final CModelCache p_cache, final boolean p_sharedassets )
+    {
+        this( p_cache, p_sharedassets, CMetrics.DISABLED );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cache model cache or null
+     * @param p_sharedassets static assets are written once into the template root directory
+     * @param p_metrics metrics
+     */
+    public CEngine( final CModelCache p_cache, final boolean p_sharedassets, final CMetrics p_metrics )
+    {
+        this( p_cache, p_sharedassets, p_metrics, 0 );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cache model cache or null
+     * @param p_sharedassets static assets are written once into the template root directory
+     * @param p_metrics metrics
+     * @param p_dfaclear ratio of the used heap after the last garbage collection to the maximum heap, which clears the DFA caches of the parser
+     * after a batch of grammar files is parsed, values outside (0,1] disable the clearing
+     */
+    public CEngine( final CModelCache p_cache, final boolean p_sharedassets, final CMetrics p_metrics, final double p_dfaclear )
+    {
+        this( p_cache, p_sharedassets, p_metrics, p_dfaclear, 0 );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cache model cache or null
+     * @param p_sharedassets static assets are written once into the template root directory
+     * @param p_metrics metrics
+     * @param p_dfaclear ratio of the used heap after the last garbage collection to the maximum heap, which clears the DFA caches of the parser
+     * after a batch of grammar files is parsed, values outside (0,1] disable the clearing
+     * @param p_parallelrules minimum number of rules of a grammar, which are converted in parallel,
+     * values less than one disable the parallel conversion
+     */
+    public CEngine( final CModelCache p_cache, final boolean p_sharedassets, final CMetrics p_metrics, final double p_dfaclear, final int p_parallelrules )
+    {
+        this( p_cache, p_sharedassets, p_metrics, p_dfaclear, p_parallelrules, DEFAULTMAPTHRESHOLD );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_cache model cache or null
+     * @param p_sharedassets static assets are written once into the template root directory
+     * @param p_metrics metrics
+     * @param p_dfaclear ratio of the used heap after the last garbage collection to the maximum heap, which clears the DFA caches of the parser
+     * after a batch of grammar files is parsed, values outside (0,1] disable the clearing
+     * @param p_parallelrules minimum number of rules of a grammar, which are converted in parallel,
+     * values less than one disable the parallel conversion
+     * @param p_mapthreshold file size in bytes from which grammar files are memory-mapped,
+     * values less than one disable the memory-mapping
+     */
+    public CEngine( final CModelCache p_cache, final boolean p_sharedassets, final CMetrics p_metrics, final double p_dfaclear, final int p_parallelrules,
+                    final long p_mapthreshold
+    )
+    {
+        m_cache = p_cache;
+        m_sharedassets = p_sharedassets;
+        m_metrics = p_metrics;
+        m_dfaclear = p_dfaclear;
+        m_parallelrules = p_parallelrules;
+        m_mapthreshold = p_mapthreshold;
+    }
+
+    /**
+     * clears the shared DFA caches of the parser, if the heap after
+     * the last garbage collection exceeds the configured ratio
+     *
+     * @return caches are cleared
+     * @note the caches are replaced without synchronization,
+     * so no grammar file must be parsed during the call
+     */
+    public boolean cleardfa()
+    {
+        return CGrammarParser.clear( m_dfaclear );
+    }
+
+    /**
+     * returns if static assets are written once into the template root directory
+     *
+     * @return shared assets flag
+     */
+    public boolean sharedassets()
+    {
+        return m_sharedassets;
+    }
+
+    /**
+     * returns the metrics of the engine
+     *
+     * @return metrics
+     */
+    public CMetrics metrics()
+    {
+        return m_metrics;
+    }
 
     /**
      * generator call
@@ -60,39 +235,46 @@ public final class CEngine
      * @param p_grammar grammar input file
      * @param p_docuclean set with documentation clean regex
      * @param p_imports map with grammar imported grammar files
-     * @param p_templates exporting templates  @return list with error messages
+     * @param p_templates exporting templates
      * @return list with error messages
      * @throws IOException on IO error
+     * @note the grammar and all imports are parsed once, the
+     * resulting model is shared by all templates
      */
     public Collection<String> generate( final File p_baseoutputdirectory, final File p_outputdirectory, final File p_grammar, final Set<String> p_docuclean,
-                                        final Map<String, File> p_imports, final Set<ETemplate> p_templates
+                                        final Map<String, File> p_imports, final Set<ITemplateProvider> p_templates
     ) throws IOException
+    {
+        return this.generate( p_baseoutputdirectory, p_outputdirectory, this.parse( p_grammar, p_docuclean, p_imports ), p_templates );
+    }
+
+    /**
+     * generator call with parsed grammar models
+     *
+     * @param p_baseoutputdirectory base output directory
+     * @param p_outputdirectory output directory - relative to base output directory
+     * @param p_models grammar models, first element is the model of the grammar input file
+     * @param p_templates exporting templates
+     * @return list with error messages
+     * @note thread-safe templates run in parallel, all
+     * other templates of a provider run one after another
+     */
+    public Collection<String> generate( final File p_baseoutputdirectory, final File p_outputdirectory, final List<IGrammarModel> p_models,
+                                        final Set<ITemplateProvider> p_templates
+    )
     {
         return p_templates
                 .parallelStream()
 
-                // create template
-                .map( ETemplate::generate )
-
-                // create output directory if not exists
+                // run template
                 .flatMap( i ->
                 {
-                    try
-                    {
-                        final Path l_directory = Files.createDirectories( CCommon.outputdirectory( p_baseoutputdirectory, i, p_outputdirectory ) );
-
-                        // run exporting process
-                        i.preprocess( l_directory );
-                        final Collection<String> l_errors = this.parse( p_grammar, p_docuclean, p_imports, i );
-                        if ( !l_errors.isEmpty() )
-                            return l_errors.stream();
+                    if ( i.capabilities().contains( ITemplateProvider.ECapability.THREADSAFE ) )
+                        return this.run( i, p_baseoutputdirectory, p_outputdirectory, p_models );
 
-                        i.postprocess( l_directory );
-                        return Stream.<String>of();
-                    }
-                    catch ( final URISyntaxException | IOException l_exception )
+                    synchronized ( i )
                     {
-                        return Stream.of( l_exception.getMessage() );
+                        return this.run( i, p_baseoutputdirectory, p_outputdirectory, p_models );
                     }
                 } )
 
@@ -100,47 +282,405 @@ public final class CEngine
                 .collect( Collectors.toList() );
     }
 
+    /**
+     * generator call which writes the index document of a template into a writer
+     *
+     * @param p_template template provider
+     * @param p_models grammar models, first element is the model of the grammar input file
+     * @param p_output writer of the index document
+     * @param p_assets URL path of the static assets
+     * @throws IOException on IO errors
+     * @throws URISyntaxException on URI errors
+     * @note nothing is written into the file system, static assets must be served separately
+     */
+    public void generate( final ITemplateProvider p_template, final List<IGrammarModel> p_models, final Writer p_output, final String p_assets )
+        throws IOException, URISyntaxException
+    {
+        final ITemplate l_template = p_template.generate();
+        try
+        {
+            CEngine.render( l_template, p_models );
+        }
+        catch ( final UncheckedIOException l_exception )
+        {
+            throw l_exception.getCause();
+        }
+        l_template.postprocess( p_output, p_assets );
+    }
+
+    /**
+     * runs the exporting process of a template
+     *
+     * @param p_provider template provider
+     * @param p_baseoutputdirectory base output directory
+     * @param p_outputdirectory output directory - relative to base output directory
+     * @param p_models grammar models
+     * @return stream with error messages
+     */
+    private Stream<String> run( final ITemplateProvider p_provider, final File p_baseoutputdirectory, final File p_outputdirectory,
+                                final List<IGrammarModel> p_models
+    )
+    {
+        try
+        {
+            // create template and output directory if not exists
+            final ITemplate l_template = p_provider.generate();
+            final Path l_directory = Files.createDirectories( CCommon.outputdirectory( p_baseoutputdirectory, l_template, p_outputdirectory ) );
+
+            // run exporting process
+            l_template.preprocess( l_directory );
+            try
+                (
+                    final CMetrics.CMeasure l_measure = m_metrics.measure( p_outputdirectory.getPath(), l_template.name(), CMetrics.EPhase.RENDERING )
+                )
+            {
+                CEngine.render( l_template, p_models );
+            }
+
+            final Path l_assets;
+            try
+                (
+                    final CMetrics.CMeasure l_measure = m_metrics.measure( p_outputdirectory.getPath(), l_template.name(), CMetrics.EPhase.ASSETS )
+                )
+            {
+                l_assets = p_provider.capabilities().contains( ITemplateProvider.ECapability.ASSETS )
+                           ? this.assets( l_template, p_baseoutputdirectory, l_directory )
+                           : l_directory;
+            }
+
+            try
+                (
+                    final CMetrics.CMeasure l_measure = m_metrics.measure( p_outputdirectory.getPath(), l_template.name(), CMetrics.EPhase.SUBSTITUTION )
+                )
+            {
+                l_template.postprocess( l_directory, l_assets );
+                if ( m_metrics.enabled() )
+                    l_measure.written( CEngine.size( l_directory ) );
+            }
+            return Stream.of();
+        }
+        catch ( final URISyntaxException | IOException | UncheckedIOException l_exception )
+        {
+            return Stream.of( l_exception.getMessage() );
+        }
+    }
+
 
     /**
-     * runs parsing process with recursive descent of a grammar file
+     * returns the assets directory and writes the assets
+     *
+     * @param p_template template
+     * @param p_baseoutputdirectory base output directory
+     * @param p_outputdirectory output directory of the grammar
+     * @return assets directory
+     *
+     * @throws IOException on IO errors
+     * @throws URISyntaxException on URI errors
+     * @note shared assets are written once per engine and template root
+     */
+    private Path assets( final ITemplate p_template, final File p_baseoutputdirectory, final Path p_outputdirectory ) throws IOException, URISyntaxException
+    {
+        if ( !m_sharedassets )
+        {
+            p_template.assets( p_outputdirectory );
+            return p_outputdirectory;
+        }
+
+        final Path l_assets = CCommon.outputdirectory( p_baseoutputdirectory, p_template, new File( "" ) ).toAbsolutePath().normalize();
+        if ( m_assets.add( l_assets ) )
+            try
+            {
+                p_template.assets( l_assets );
+            }
+            catch ( final IOException | URISyntaxException l_exception )
+            {
+                m_assets.remove( l_assets );
+                throw l_exception;
+            }
+
+        return l_assets;
+    }
+
+    /**
+     * removes the parsed models of a grammar file,
+     * so the file is parsed again on the next request
      *
      * @param p_grammar grammar file
+     */
+    public void invalidate( final File p_grammar )
+    {
+        final File l_grammar = p_grammar.getAbsoluteFile().toPath().normalize().toFile();
+        m_models.asMap().keySet().removeIf( i -> i.getLeft().equals( l_grammar ) );
+    }
+
+    /**
+     * runs parsing process of a grammar file and resolves the imports
+     *
+     * @param p_grammar grammar file
+     * @param p_docuclean set with documentation clean regex
+     * @param p_imports map with grammar imported grammar files
+     * @return unmodifiable list with the model of the grammar and the models of all
+     * imports, each import is listed once and after the imports it depends on
+     *
+     * @throws IOException thrown on IO errors or on a cycle of imports
+     */
+    public List<IGrammarModel> parse( final File p_grammar, final Set<String> p_docuclean, final Map<String, File> p_imports ) throws IOException
+    {
+        final IGrammarModel l_model = this.model( p_grammar, p_docuclean );
+        final List<IGrammarModel> l_models = new ArrayList<>();
+        l_models.add( l_model );
+
+        try
+            (
+                final CMetrics.CMeasure l_measure = m_metrics.measure( CEngine.metrickey( p_grammar ), "", CMetrics.EPhase.IMPORTS )
+            )
+        {
+            this.imports(
+                l_model, p_docuclean, p_imports,
+                new ArrayDeque<>( Collections.singleton( FilenameUtils.removeExtension( p_grammar.getName() ) ) ), new HashSet<>(), l_models
+            );
+        }
+
+        return Collections.unmodifiableList( l_models );
+    }
+
+    /**
+     * resolves the imports of a model with a depth-first search
+     *
+     * @param p_model grammar model
      * @param p_docuclean set with documentation clean regex
      * @param p_imports map with grammar imported grammar files
-     * @param p_template template which will be passend
-     * @return colleciton with error messages
+     * @param p_path grammar names of the current import path
+     * @param p_visited grammar names of the resolved imports
+     * @param p_models list with resolved models
+     *
+     * @throws IOException thrown on IO errors or on a cycle of imports
+     */
+    private void imports( final IGrammarModel p_model, final Set<String> p_docuclean, final Map<String, File> p_imports, final Deque<String> p_path,
+                          final Set<String> p_visited, final List<IGrammarModel> p_models
+    ) throws IOException
+    {
+        for ( final String l_name : p_model.imports() )
+        {
+            if ( p_path.contains( l_name ) )
+            {
+                final List<String> l_cycle = new ArrayList<>( p_path );
+                l_cycle.add( l_name );
+                throw new IOException(
+                    CCommon.languagestring( this, "importcycle", String.join( " -> ", l_cycle.subList( l_cycle.indexOf( l_name ), l_cycle.size() ) ) )
+                );
+            }
+
+            final File l_import = p_imports.get( l_name );
+            if ( ( l_import == null ) || ( !p_visited.add( l_name ) ) )
+                continue;
+
+            final IGrammarModel l_model = this.model( l_import, p_docuclean );
+            p_path.addLast( l_name );
+            this.imports( l_model, p_docuclean, p_imports, p_path, p_visited, p_models );
+            p_path.removeLast();
+            p_models.add( l_model );
+        }
+    }
+
+    /**
+     * returns the model of a single grammar file, the model
+     * is parsed once and shared by all grammars of the engine
+     *
+     * @param p_grammar grammar file
+     * @param p_docuclean set with documentation clean regex
+     * @return grammar model
      *
      * @throws IOException thrown on IO errors
      */
-    private Collection<String> parse( final File p_grammar, final Set<String> p_docuclean, final Map<String, File> p_imports, final ITemplate p_template )
-    throws IOException
-    {
-        // lexing and parsing the input grammar file
-        final CASTVisitorAntLR l_visitor = new CASTVisitorAntLR( p_template, p_docuclean );
-        l_visitor.visit(
-                new ANTLRv4Parser(
-                        new CommonTokenStream(
-                                new ANTLRv4Lexer(
-                                        new ANTLRInputStream( new FileInputStream( p_grammar ) )
-                                )
-                        )
-                ).grammarSpec()
+    private IGrammarModel model( final File p_grammar, final Set<String> p_docuclean ) throws IOException
+    {
+        try
+        {
+            return m_models.get(
+                new ImmutablePair<>( p_grammar.getAbsoluteFile().toPath().normalize().toFile(), p_docuclean ),
+                () -> this.load( p_grammar, p_docuclean )
+            );
+        }
+        catch ( final ExecutionException l_exception )
+        {
+            if ( l_exception.getCause() instanceof IOException )
+                throw (IOException) l_exception.getCause();
+            throw new IOException( l_exception.getCause() );
+        }
+        catch ( final UncheckedExecutionException l_exception )
+        {
+            throw new IOException( l_exception.getCause() );
+        }
+    }
+
+    /**
+     * loads the model of a single grammar file
+     * from the cache or by parsing the file
+     *
+     * @param p_grammar grammar file
+     * @param p_docuclean set with documentation clean regex
+     * @return grammar model
+     *
+     * @throws IOException thrown on IO errors
+     */
+    private IGrammarModel load( final File p_grammar, final Set<String> p_docuclean ) throws IOException
+    {
+        // a mapping is limited to 2 GiB, larger files are read by the stream
+        final long l_size = p_grammar.length();
+        if ( ( m_mapthreshold > 0 ) && ( l_size >= m_mapthreshold ) && ( l_size <= Integer.MAX_VALUE ) )
+            return this.loadmapped( p_grammar, p_docuclean );
+
+        if ( l_size > Integer.MAX_VALUE )
+            return this.visit( CEngine.metrickey( p_grammar ), CharStreams.fromPath( p_grammar.toPath() ), p_docuclean );
+
+        if ( m_cache == null )
+            return this.visit( CEngine.metrickey( p_grammar ), CharStreams.fromPath( p_grammar.toPath() ), p_docuclean );
+
+        // the content is read once for the cache key and the parser
+        final byte[] l_content = Files.readAllBytes( p_grammar.toPath() );
+        final String l_key = m_cache.key( l_content, p_docuclean );
+        final IGrammarModel l_model = m_cache.load( l_key );
+
+        return l_model != null
+               ? l_model
+               : m_cache.store(
+                   l_key,
+                   this.visit( CEngine.metrickey( p_grammar ), CharStreams.fromString( new String( l_content, StandardCharsets.UTF_8 ), p_grammar.getPath() ), p_docuclean )
+               );
+    }
+
+    /**
+     * loads the model of a large grammar file, the file is memory-mapped
+     * and the cache key and an ASCII content are read without copying
+     *
+     * @param p_grammar grammar file
+     * @param p_docuclean set with documentation clean regex
+     * @return grammar model
+     *
+     * @throws IOException thrown on IO errors
+     */
+    private IGrammarModel loadmapped( final File p_grammar, final Set<String> p_docuclean ) throws IOException
+    {
+        final ByteBuffer l_content = CMappedCharStream.map( p_grammar.toPath() );
+        final String l_key = m_cache == null ? null : m_cache.key( l_content, p_docuclean );
+        final IGrammarModel l_model = l_key == null ? null : m_cache.load( l_key );
+        if ( l_model != null )
+            return l_model;
+
+        final IGrammarModel l_visited = this.visit(
+            CEngine.metrickey( p_grammar ),
+            CMappedCharStream.ascii( l_content )
+            ? new CMappedCharStream( l_content, p_grammar.getPath() )
+            : CharStreams.fromPath( p_grammar.toPath() ),
+            p_docuclean
         );
 
-        return l_visitor.getGrammarImports().stream()
-                        .map( i -> p_imports.get( i.get() ) )
-                        .filter( Objects::nonNull )
-                        .flatMap( i ->
-                        {
-                            try
-                            {
-                                return this.parse( i, p_docuclean, p_imports, p_template ).stream();
-                            }
-                            catch ( final IOException l_exception )
-                            {
-                                return Stream.of( l_exception.getMessage() );
-                            }
-                        } ).collect( Collectors.toList() );
+        return l_key == null ? l_visited : m_cache.store( l_key, l_visited );
+    }
+
+    /**
+     * returns the metric key of a grammar file, grammar files
+     * with equal names in different directories are measured separately
+     *
+     * @param p_grammar grammar file
+     * @return normalized path of the grammar file
+     */
+    private static String metrickey( final File p_grammar )
+    {
+        return p_grammar.toPath().normalize().toString();
+    }
+
+    /**
+     * lexing, parsing and visiting a grammar
+     *
+     * @param p_grammar metric key of the grammar
+     * @param p_input grammar input
+     * @param p_docuclean set with documentation clean regex
+     * @return grammar model
+     *
+     * @note the token stream is filled before parsing, so lexing and parsing are measured separately,
+     * the lexer and parser instances of the current thread are reused, the parsing phase measures
+     * the SLL stage and the fallback phase the LL stage
+     */
+    private IGrammarModel visit( final String p_grammar, final CharStream p_input, final Set<String> p_docuclean )
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        final ANTLRv4Parser.GrammarSpecContext l_tree;
+        try
+        {
+            try
+                (
+                    final CMetrics.CMeasure l_measure = m_metrics.measure( p_grammar, "", CMetrics.EPhase.LEXING )
+                )
+            {
+                l_parser.lex( p_input );
+            }
+
+            final ANTLRv4Parser.GrammarSpecContext l_sll;
+            try
+                (
+                    final CMetrics.CMeasure l_measure = m_metrics.measure( p_grammar, "", CMetrics.EPhase.PARSING )
+                )
+            {
+                l_sll = l_parser.sll();
+            }
+
+            if ( l_sll != null )
+                l_tree = l_sll;
+            else
+                try
+                    (
+                        final CMetrics.CMeasure l_measure = m_metrics.measure( p_grammar, "", CMetrics.EPhase.FALLBACK )
+                    )
+                {
+                    l_tree = l_parser.ll();
+                }
+        }
+        finally
+        {
+            l_parser.release();
+        }
+
+        try
+            (
+                final CMetrics.CMeasure l_measure = m_metrics.measure( p_grammar, "", CMetrics.EPhase.VISITING )
+            )
+        {
+            final CASTVisitorAntLR l_visitor = new CASTVisitorAntLR( p_docuclean, m_parallelrules );
+            l_visitor.visit( l_tree );
+            return l_visitor.model();
+        }
+    }
+
+    /**
+     * passes the grammar models to a template
+     *
+     * @param p_template template
+     * @param p_models grammar models
+     */
+    private static void render( final ITemplate p_template, final List<IGrammarModel> p_models )
+    {
+        p_models.forEach( i ->
+        {
+            p_template.model( i );
+            final IGrammarComplexElement l_grammar = p_template.grammar( i.grammar() );
+            i.rules().forEach( j -> p_template.element( l_grammar, j ) );
+        } );
+    }
+
+    /**
+     * returns the size of the regular files of a directory
+     *
+     * @param p_directory directory
+     * @return size in bytes
+     */
+    private static long size( final Path p_directory )
+    {
+        final File[] l_files = p_directory.toFile().listFiles( File::isFile );
+        return l_files == null
+               ? 0
+               : Stream.of( l_files ).mapToLong( File::length ).sum();
     }
 
 }
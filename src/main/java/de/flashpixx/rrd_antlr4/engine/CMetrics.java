@@ -0,0 +1,295 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.MessageFormat;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+
+/**
+ * timing and allocation metrics of the generation phases
+ * for each grammar file and template
+ *
+ * @note the allocated bytes are read from the thread management bean, if the
+ * JVM does not support it, zero is recorded. Measurements can be nested, e.g.
+ * the import phase contains the lexing, parsing and visiting of the imports.
+ * The written bytes of the substitution phase are the size of the files
+ * within the output directory after the template has finished. The parsing
+ * phases are keyed by the normalized grammar path and the template phases by
+ * the relative output path, so equal grammar names in different directories
+ * are not merged.
+ */
+public final class CMetrics
+{
+    /**
+     * disabled metrics, which records nothing
+     */
+    public static final CMetrics DISABLED = new CMetrics( false );
+    /**
+     * table header
+     */
+    public static final String[] HEADER = {"grammar", "template", "phase", "calls", "time [ms]", "allocated [KiB]", "written [KiB]"};
+    /**
+     * thread management bean
+     */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    /**
+     * measure of disabled metrics
+     */
+    private static final CMeasure NOMEASURE = new CMeasure( null );
+    /**
+     * metrics are recorded
+     */
+    private final boolean m_enabled;
+    /**
+     * values of grammar, template and phase
+     */
+    private final Map<Triple<String, String, EPhase>, CValue> m_values = new ConcurrentHashMap<>();
+
+    /**
+     * ctor
+     *
+     * @param p_enabled metrics are recorded
+     */
+    public CMetrics( final boolean p_enabled )
+    {
+        m_enabled = p_enabled;
+    }
+
+    /**
+     * returns if metrics are recorded
+     *
+     * @return enabled flag
+     */
+    public final boolean enabled()
+    {
+        return m_enabled;
+    }
+
+    /**
+     * starts a measurement, which ends on closing
+     *
+     * @param p_grammar grammar name
+     * @param p_template template name or empty for template independent phases
+     * @param p_phase phase
+     * @return measure
+     */
+    public final CMeasure measure( final String p_grammar, final String p_template, final EPhase p_phase )
+    {
+        return m_enabled
+               ? new CMeasure( m_values.computeIfAbsent( new ImmutableTriple<>( p_grammar, p_template, p_phase ), i -> new CValue() ) )
+               : NOMEASURE;
+    }
+
+    /**
+     * returns the recorded values as table rows, ordered
+     * by grammar, template and phase
+     *
+     * @return list with rows
+     */
+    public final List<String[]> table()
+    {
+        return this.sorted()
+                   .stream()
+                   .map( i -> new String[]{
+                       i.getKey().getLeft(),
+                       i.getKey().getMiddle(),
+                       i.getKey().getRight().toString(),
+                       Long.toString( i.getValue().m_calls.sum() ),
+                       Long.toString( TimeUnit.NANOSECONDS.toMillis( i.getValue().m_time.sum() ) ),
+                       Long.toString( i.getValue().m_allocated.sum() / 1024 ),
+                       Long.toString( i.getValue().m_written.sum() / 1024 )
+                   } )
+                   .collect( Collectors.toList() );
+    }
+
+    /**
+     * writes the recorded values as JSON array, times
+     * are nanoseconds and sizes are bytes
+     *
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    public final void json( final Writer p_writer ) throws IOException
+    {
+        String l_separator = "";
+        p_writer.write( "[" );
+        for ( final Map.Entry<Triple<String, String, EPhase>, CValue> l_entry : this.sorted() )
+        {
+            p_writer.write( l_separator );
+            p_writer.write( MessageFormat.format(
+                "\n'{'\"grammar\":\"{0}\",\"template\":\"{1}\",\"phase\":\"{2}\",\"calls\":{3},\"time\":{4},\"allocated\":{5},\"written\":{6}'}'",
+                StringEscapeUtils.escapeJson( l_entry.getKey().getLeft() ),
+                StringEscapeUtils.escapeJson( l_entry.getKey().getMiddle() ),
+                l_entry.getKey().getRight(),
+                Long.toString( l_entry.getValue().m_calls.sum() ),
+                Long.toString( l_entry.getValue().m_time.sum() ),
+                Long.toString( l_entry.getValue().m_allocated.sum() ),
+                Long.toString( l_entry.getValue().m_written.sum() )
+            ) );
+            l_separator = ",";
+        }
+        p_writer.write( "\n]\n" );
+    }
+
+    /**
+     * returns the sorted values
+     *
+     * @return list with entries
+     */
+    private List<Map.Entry<Triple<String, String, EPhase>, CValue>> sorted()
+    {
+        return m_values.entrySet()
+                       .stream()
+                       .sorted( Comparator.comparing( ( Map.Entry<Triple<String, String, EPhase>, CValue> i ) -> i.getKey().getLeft() )
+                                          .thenComparing( i -> i.getKey().getMiddle() )
+                                          .thenComparing( i -> i.getKey().getRight() ) )
+                       .collect( Collectors.toList() );
+    }
+
+    /**
+     * returns the allocated bytes of the current thread
+     *
+     * @return bytes or zero if not supported
+     */
+    private static long allocated()
+    {
+        return THREADS instanceof com.sun.management.ThreadMXBean
+               ? Math.max( 0, ( (com.sun.management.ThreadMXBean) THREADS ).getThreadAllocatedBytes( Thread.currentThread().getId() ) )
+               : 0;
+    }
+
+
+    /**
+     * enum define generation phases
+     */
+    public enum EPhase
+    {
+        DISCOVERY,
+        LEXING,
+        PARSING,
+        FALLBACK,
+        VISITING,
+        IMPORTS,
+        RENDERING,
+        ASSETS,
+        SUBSTITUTION;
+    }
+
+
+    /**
+     * running measurement of a phase, the
+     * measurement must be closed by the same thread
+     */
+    public static final class CMeasure implements AutoCloseable
+    {
+        /**
+         * value or null if disabled
+         */
+        private final CValue m_value;
+        /**
+         * start time
+         */
+        private final long m_time;
+        /**
+         * allocated bytes on start
+         */
+        private final long m_allocated;
+
+        /**
+         * ctor
+         *
+         * @param p_value value or null
+         */
+        CMeasure( final CValue p_value )
+        {
+            m_value = p_value;
+            m_time = p_value == null ? 0 : System.nanoTime();
+            m_allocated = p_value == null ? 0 : CMetrics.allocated();
+        }
+
+        /**
+         * adds written bytes
+         *
+         * @param p_bytes number of bytes
+         * @return self reference
+         */
+        public final CMeasure written( final long p_bytes )
+        {
+            if ( m_value != null )
+                m_value.m_written.add( p_bytes );
+            return this;
+        }
+
+        @Override
+        public final void close()
+        {
+            if ( m_value == null )
+                return;
+
+            m_value.m_time.add( System.nanoTime() - m_time );
+            m_value.m_allocated.add( CMetrics.allocated() - m_allocated );
+            m_value.m_calls.increment();
+        }
+    }
+
+
+    /**
+     * recorded value of a phase
+     */
+    private static final class CValue
+    {
+        /**
+         * number of calls
+         */
+        private final LongAdder m_calls = new LongAdder();
+        /**
+         * time in nanoseconds
+         */
+        private final LongAdder m_time = new LongAdder();
+        /**
+         * allocated bytes
+         */
+        private final LongAdder m_allocated = new LongAdder();
+        /**
+         * written bytes
+         */
+        private final LongAdder m_written = new LongAdder();
+    }
+
+}
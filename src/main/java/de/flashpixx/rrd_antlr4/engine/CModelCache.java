@@ -0,0 +1,274 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarCodec;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * persistent content-addressed cache of grammar models
+ *
+ * @note an entry is addressed by a hash over the package and codec version, the language,
+ * the documentation clean rules and the content of a single grammar file, so
+ * changing any of these inputs addresses a new entry. Imported grammars are
+ * resolved on each run and are stored as entries of their own. Entries which
+ * cannot be read are removed, if the directory exceeds the maximum size the
+ * least-recently used entries are removed.
+ */
+public final class CModelCache
+{
+    /**
+     * file extension of an entry
+     */
+    private static final String EXTENSION = ".model";
+    /**
+     * chunk size in bytes to hash a buffer
+     */
+    private static final int CHUNKSIZE = 64 * 1024;
+    /**
+     * cache directory
+     */
+    private final Path m_directory;
+    /**
+     * maximum size in bytes
+     */
+    private final long m_maximumsize;
+    /**
+     * current size in bytes
+     */
+    private final AtomicLong m_size;
+
+    /**
+     * ctor
+     *
+     * @param p_directory cache directory
+     * @param p_maximumsize maximum size of the directory in bytes
+     * @throws IOException if the directory cannot be created
+     */
+    public CModelCache( final File p_directory, final long p_maximumsize ) throws IOException
+    {
+        m_maximumsize = p_maximumsize;
+        m_directory = Files.createDirectories( p_directory.toPath() );
+        m_size = new AtomicLong( this.entries().mapToLong( CModelCache::size ).sum() );
+    }
+
+    /**
+     * builds the key of a grammar file
+     *
+     * @param p_content file content
+     * @param p_docuclean set with documentation clean regex
+     * @return key
+     */
+    public final String key( final byte[] p_content, final Set<String> p_docuclean )
+    {
+        return this.key( ByteBuffer.wrap( p_content ), p_docuclean );
+    }
+
+    /**
+     * builds the key of a grammar file, the buffer is hashed
+     * in chunks, so a memory-mapped file is not copied at once
+     *
+     * @param p_content file content, the position of the buffer is not changed
+     * @param p_docuclean set with documentation clean regex
+     * @return key
+     */
+    public final String key( final ByteBuffer p_content, final Set<String> p_docuclean )
+    {
+        final Hasher l_hasher = Hashing.sha256().newHasher()
+                                       .putString( CCommon.version(), StandardCharsets.UTF_8 )
+                                       .putInt( CGrammarCodec.VERSION )
+                                       .putString( Locale.getDefault().toLanguageTag(), StandardCharsets.UTF_8 );
+
+        p_docuclean.stream().sorted().forEach( i -> l_hasher.putInt( i.length() ).putString( i, StandardCharsets.UTF_8 ) );
+
+        final ByteBuffer l_content = p_content.duplicate();
+        final byte[] l_chunk = new byte[Math.min( CHUNKSIZE, l_content.remaining() )];
+        while ( l_content.hasRemaining() )
+        {
+            final int l_length = Math.min( l_chunk.length, l_content.remaining() );
+            l_content.get( l_chunk, 0, l_length );
+            l_hasher.putBytes( l_chunk, 0, l_length );
+        }
+
+        return l_hasher.hash().toString();
+    }
+
+    /**
+     * loads a model
+     *
+     * @param p_key key
+     * @return model or null if the entry does not exist
+     */
+    public final IGrammarModel load( final String p_key )
+    {
+        final Path l_entry = m_directory.resolve( p_key + EXTENSION );
+        if ( !Files.isRegularFile( l_entry ) )
+            return null;
+
+        try
+            (
+                final InputStream l_stream = Files.newInputStream( l_entry )
+            )
+        {
+            final IGrammarModel l_model = CGrammarCodec.read( l_stream, Files.size( l_entry ) );
+            Files.setLastModifiedTime( l_entry, FileTime.fromMillis( System.currentTimeMillis() ) );
+            return l_model;
+        }
+        catch ( final IOException | RuntimeException l_exception )
+        {
+            this.remove( l_entry );
+            return null;
+        }
+    }
+
+    /**
+     * stores a model, io errors are ignored
+     * because the model can be rebuilt
+     *
+     * @param p_key key
+     * @param p_model model
+     * @return model
+     */
+    public final IGrammarModel store( final String p_key, final IGrammarModel p_model )
+    {
+        Path l_temporary = null;
+        try
+        {
+            l_temporary = Files.createTempFile( m_directory, p_key, ".tmp" );
+            try
+                (
+                    final OutputStream l_stream = Files.newOutputStream( l_temporary )
+                )
+            {
+                CGrammarCodec.write( p_model, l_stream );
+            }
+
+            final long l_size = Files.size( l_temporary );
+            final Path l_entry = m_directory.resolve( p_key + EXTENSION );
+            final long l_replaced = CModelCache.size( l_entry );
+            Files.move( l_temporary, l_entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+
+            if ( m_size.addAndGet( l_size - l_replaced ) > m_maximumsize )
+                this.evict();
+        }
+        catch ( final IOException l_exception )
+        {
+            if ( l_temporary != null )
+                l_temporary.toFile().delete();
+        }
+
+        return p_model;
+    }
+
+    /**
+     * removes least-recently used entries until
+     * the cache fits the maximum size
+     */
+    private synchronized void evict()
+    {
+        if ( m_size.get() <= m_maximumsize )
+            return;
+
+        final List<Path> l_entries = this.entries()
+                                         .sorted( Comparator.comparingLong( CModelCache::lastmodified ) )
+                                         .collect( Collectors.toList() );
+
+        for ( final Path l_entry : l_entries )
+        {
+            if ( m_size.get() <= m_maximumsize )
+                return;
+            this.remove( l_entry );
+        }
+    }
+
+    /**
+     * removes an entry
+     *
+     * @param p_entry entry file
+     */
+    private void remove( final Path p_entry )
+    {
+        final long l_size = CModelCache.size( p_entry );
+        if ( p_entry.toFile().delete() )
+            m_size.addAndGet( -l_size );
+    }
+
+    /**
+     * returns all entries
+     *
+     * @return stream of entry files
+     */
+    private Stream<Path> entries()
+    {
+        final File[] l_files = m_directory.toFile().listFiles( ( i, j ) -> j.endsWith( EXTENSION ) );
+        return l_files == null
+               ? Stream.of()
+               : Stream.of( l_files ).map( File::toPath );
+    }
+
+    /**
+     * returns the size of an entry
+     *
+     * @param p_entry entry file
+     * @return size in bytes or zero if not exist
+     */
+    private static long size( final Path p_entry )
+    {
+        return p_entry.toFile().length();
+    }
+
+    /**
+     * returns the last modified time of an entry
+     *
+     * @param p_entry entry file
+     * @return time in milliseconds or zero if not exist
+     */
+    private static long lastmodified( final Path p_entry )
+    {
+        return p_entry.toFile().lastModified();
+    }
+
+}
@@ -23,8 +23,6 @@
 
 package de.flashpixx.rrd_antlr4.engine.template;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import de.flashpixx.rrd_antlr4.CCommon;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarChoice;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarCollection;
@@ -38,12 +36,13 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -53,14 +52,26 @@ import java.util.stream.IntStream;
  */
 final class CHTML extends IBaseTemplate
 {
+    /**
+     * diagram element of an empty element
+     */
+    private static final String SKIP = "[\"Skip\"]";
     /**
      * main grammar
      */
     private IGrammarComplexElement m_grammar;
     /**
-     * rules table
+     * rules store
+     */
+    private final CRuleStore m_rules = new CRuleStore();
+    /**
+     * diagram data store
+     */
+    private final CRuleStore m_diagrams = new CRuleStore();
+    /**
+     * diagrams are rendered as static SVG images
      */
-    private final Table<String, String, String> m_rules = HashBasedTable.create();
+    private final boolean m_svg;
 
     /**
      * ctor
@@ -69,7 +80,20 @@ final class CHTML extends IBaseTemplate
      */
     CHTML( final String p_name )
     {
-        super( p_name, "index.htm" );
+        this( p_name, p_name, false );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_name template name
+     * @param p_resource name of the resource directory
+     * @param p_svg render diagrams as static SVG images
+     */
+    CHTML( final String p_name, final String p_resource, final boolean p_svg )
+    {
+        super( p_name, p_resource, "index.htm" );
+        m_svg = p_svg;
     }
 
     @Override
@@ -78,78 +102,177 @@ final class CHTML extends IBaseTemplate
     }
 
     @Override
-    public final void postprocess( final Path p_output ) throws IOException, URISyntaxException
+    public final void assets( final Path p_assets ) throws IOException, URISyntaxException
     {
         // copy JavaScript and CSS elements
-        this.copy( "index.htm", p_output );
-        this.copy( "layout.css", p_output );
-        this.copy( "action.js", p_output );
-        this.copy( "lib/jquery/dist/jquery.min.js", p_output );
-        this.copy( "lib/tether/dist/js/tether.min.js", p_output );
-        this.copy( "lib/bootstrap/dist/js/bootstrap.min.js", p_output );
-        this.copy( "lib/bootstrap/dist/css/bootstrap.min.css", p_output );
-        this.copy( "lib/railroad-diagrams/railroad-diagrams.css", p_output );
-        this.copy( "lib/railroad-diagrams/railroad-diagrams.js", p_output );
-
-        // replace content
-        this.replace(
-                new File( p_output.toString(), "/index.htm" ),
-
-                // set HTML language code
-                "%language%", Locale.getDefault().getLanguage(),
-
-                // set HTML title
-                "%title%", CCommon.languagestring( this, "htmltitle", m_grammar.id() ),
-
-                // set grammar documentation
-                "%grammardocumentation%", m_grammar.documentation(),
-
-                // set menu with rule list
-                "%rulelist%", StringUtils.join(
-                        m_rules.rowMap().entrySet().stream().sorted( ( n, m ) -> n.getKey().compareToIgnoreCase( m.getKey() ) )
-                               .map( i -> MessageFormat.format(
-                                       "<div class=\"rulelist\" id=\"list_{0}\">\n"
-                                       + "<h5 data-ruleset=\"rules_{0}\" class=\"grammarlisthead\">{0}</h5>\n"
-                                       + "<ul class=\"nav sidebar-nav\">\n{1}</ul>\n"
-                                       + "</div>",
-                                       i.getKey(),
-                                       StringUtils.join(
-                                               i.getValue().keySet().stream()
-                                                .sorted( String::compareToIgnoreCase )
-                                                .map( j -> MessageFormat.format( "<li><a href=\"#{0}\">{1}</a></li>\n", CHTML.linkhash( j ),
-                                                                                 j.toLowerCase()
-                                                ) )
-                                                .collect( Collectors.toList() ),
-                                               ""
-                                       )
-                                     )
-                               )
-                               .collect( Collectors.toList() ),
-                        "\n\n"
-                ),
-
-                // set rules of diagrams
-                "%rules%", StringUtils.join(
-                        m_rules.rowMap().entrySet().stream().sorted( ( n, m ) -> n.getKey().compareToIgnoreCase( m.getKey() ) )
-                               .map( i -> MessageFormat.format(
-                                       "<div class=\"ruleelements\" id=\"rules_{0}\">"
-                                       + "<h2>{0}</h2>"
-                                       + "\n{1}\n"
-                                       + "</div>",
-                                       i.getKey(),
-                                       StringUtils.join(
-                                               i.getValue().entrySet().stream()
-                                                .sorted( ( n, m ) -> n.getKey().compareToIgnoreCase( m.getKey() ) )
-                                                .map( Map.Entry::getValue )
-                                                .collect( Collectors.toList() ),
-                                               "\n"
-                                       ).trim()
-                                     )
-                               )
-                               .collect( Collectors.toList() ),
-                        "\n\n"
-                )
-        );
+        this.copy( "layout.css", p_assets );
+        this.copy( "action.js", p_assets );
+        this.copy( "lib/jquery/dist/jquery.min.js", p_assets );
+        this.copy( "lib/tether/dist/js/tether.min.js", p_assets );
+        this.copy( "lib/bootstrap/dist/js/bootstrap.min.js", p_assets );
+        this.copy( "lib/bootstrap/dist/css/bootstrap.min.css", p_assets );
+        this.copy( "lib/railroad-diagrams/railroad-diagrams.css", p_assets );
+        this.copy( "lib/railroad-diagrams/railroad-diagrams.js", p_assets );
+    }
+
+    @Override
+    public final void postprocess( final Path p_output, final Path p_assets ) throws IOException, URISyntaxException
+    {
+        // relative path of the assets, URLs use always slashes
+        final String l_assets = p_output.toAbsolutePath().normalize().relativize( p_assets.toAbsolutePath().normalize() ).toString().replace( File.separatorChar, '/' );
+
+        try
+        {
+            this.write( "index.htm", p_output, this.values( l_assets.isEmpty() ? "" : l_assets + "/" ) );
+        }
+        finally
+        {
+            try
+            {
+                m_rules.close();
+            }
+            finally
+            {
+                m_diagrams.close();
+            }
+        }
+    }
+
+    @Override
+    public final void postprocess( final Writer p_output, final String p_assets ) throws IOException, URISyntaxException
+    {
+        try
+        {
+            this.write( "index.htm", p_output, this.values( p_assets ) );
+        }
+        finally
+        {
+            try
+            {
+                m_rules.close();
+            }
+            finally
+            {
+                m_diagrams.close();
+            }
+        }
+    }
+
+    /**
+     * returns the placeholder values of the index document
+     *
+     * @param p_assets URL path of the assets
+     * @return map with placeholder and value
+     */
+    private Map<String, CPlaceholderTemplate.IValue> values( final String p_assets )
+    {
+        final Map<String, CPlaceholderTemplate.IValue> l_values = new HashMap<>();
+
+        // set assets path
+        l_values.put( "%assets%", i -> i.write( p_assets ) );
+
+        // set HTML language code
+        l_values.put( "%language%", i -> i.write( Locale.getDefault().getLanguage() ) );
+
+        // set HTML title
+        l_values.put( "%title%", i -> i.write( CCommon.languagestring( this, "htmltitle", m_grammar.id() ) ) );
+
+        // set grammar documentation
+        l_values.put( "%grammardocumentation%", i -> i.write( m_grammar.documentation() ) );
+
+        // set menu with rule list
+        l_values.put( "%rulelist%", this::rulelist );
+
+        // set rules of diagrams, the rules are streamed from the store
+        l_values.put( "%rules%", this::rules );
+
+        // set diagram data, which is rendered lazy within the browser
+        l_values.put( "%diagrams%", this::diagrams );
+
+        return l_values;
+    }
+
+    /**
+     * writes the menu with the rule list
+     *
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    private void rulelist( final Writer p_writer ) throws IOException
+    {
+        String l_separator = "";
+        for ( final String l_grammar : m_rules.grammars() )
+        {
+            p_writer.write( l_separator );
+            p_writer.write( MessageFormat.format(
+                    "<div class=\"rulelist\" id=\"list_{0}\">\n"
+                    + "<h5 data-ruleset=\"rules_{0}\" class=\"grammarlisthead\">{0}</h5>\n"
+                    + "<ul class=\"nav sidebar-nav\">\n",
+                    l_grammar
+            ) );
+
+            for ( final String l_rule : m_rules.rules( l_grammar ) )
+                p_writer.write( MessageFormat.format( "<li><a href=\"#{0}\">{1}</a></li>\n", CHTML.linkhash( l_rule ), l_rule.toLowerCase() ) );
+
+            p_writer.write( "</ul>\n</div>" );
+            l_separator = "\n\n";
+        }
+    }
+
+    /**
+     * writes the rules
+     *
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    private void rules( final Writer p_writer ) throws IOException
+    {
+        String l_separator = "";
+        for ( final String l_grammar : m_rules.grammars() )
+        {
+            p_writer.write( l_separator );
+            p_writer.write( MessageFormat.format( "<div class=\"ruleelements\" id=\"rules_{0}\"><h2>{0}</h2>\n", l_grammar ) );
+
+            String l_ruleseparator = "";
+            for ( final String l_rule : m_rules.rules( l_grammar ) )
+            {
+                p_writer.write( l_ruleseparator );
+                m_rules.write( l_grammar, l_rule, p_writer );
+                l_ruleseparator = "\n";
+            }
+
+            p_writer.write( "\n</div>" );
+            l_separator = "\n\n";
+        }
+    }
+
+    /**
+     * writes the diagram data as JSON object with
+     * grammar name, rule hash and diagram structure
+     *
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    private void diagrams( final Writer p_writer ) throws IOException
+    {
+        String l_separator = "";
+        p_writer.write( "{" );
+        for ( final String l_grammar : m_diagrams.grammars() )
+        {
+            p_writer.write( MessageFormat.format( "{0}\"{1}\":'{'", l_separator, StringEscapeUtils.escapeJson( l_grammar ) ) );
+
+            String l_ruleseparator = "";
+            for ( final String l_rule : m_diagrams.rules( l_grammar ) )
+            {
+                p_writer.write( MessageFormat.format( "{0}\"{1}\":", l_ruleseparator, CHTML.linkhash( l_rule ) ) );
+                m_diagrams.write( l_grammar, l_rule, p_writer );
+                l_ruleseparator = ",";
+            }
+
+            p_writer.write( "}" );
+            l_separator = ",\n";
+        }
+        p_writer.write( "}" );
     }
 
     @Override
@@ -173,28 +296,27 @@ final class CHTML extends IBaseTemplate
                         + "<a name=\"{0}\"></a>"
                         + "<h5>{1}</h5>"
                         + "<p>{2}</p>"
-                        + "<p><script>"
-                        + "var l_rrd = Diagram({3}).toSVG();"
-                        + "l_rrd.id = \"svg_{0}\";"
-                        + "var l_script = document.getElementsByTagName(\"script\");"
-                        + "l_script[l_script.length - 1].parentNode.appendChild(l_rrd);"
-                        + "</script></p>"
+                        + "{3}"
                         + "</div>",
                         CHTML.linkhash( p_element.id() ),
                         p_element.id(),
                         p_element.documentation(),
-                        this.map( p_element )
+                        m_svg
+                        ? "<p>" + CSVGRailroad.svg( "svg_" + CHTML.linkhash( p_element.id() ), p_element ) + "</p>"
+                        : MessageFormat.format( "<p class=\"diagram\" data-grammar=\"{0}\" data-rule=\"{1}\"></p>", p_grammar.id(), CHTML.linkhash( p_element.id() ) )
                 )
         );
 
+        if ( !m_svg )
+            m_diagrams.put( p_grammar.id(), p_element.id(), StringUtils.defaultIfEmpty( this.map( p_element ), SKIP ) );
+
         return p_element;
     }
 
-
     @Override
     protected final String group( final IGrammarGroup p_element )
     {
-        return MessageFormat.format( "({0})", this.map( p_element.element() ) );
+        return this.map( p_element.element() );
     }
 
     @Override
@@ -204,13 +326,15 @@ final class CHTML extends IBaseTemplate
                 IntStream
                         .range( 0, p_element.get().size() )
                         .boxed()
-                        .map( i -> this.map( p_element.get().get( i ) ) )
-                        .filter( Objects::nonNull )
+                        .map( i -> StringUtils.defaultIfEmpty( this.map( p_element.get().get( i ) ), SKIP ) )
                         .collect( Collectors.toList() ),
-                ", "
+                ","
         );
 
-        return p_element.get().size() == 1 ? l_child : MessageFormat.format( "Choice({0}, {1})", 0, l_child );
+        if ( l_child.isEmpty() )
+            return SKIP;
+
+        return p_element.get().size() == 1 ? l_child : MessageFormat.format( "[\"Choice\",{0},{1}]", 0, l_child );
     }
 
     @Override
@@ -219,20 +343,23 @@ final class CHTML extends IBaseTemplate
         final String l_child = StringUtils.join(
                 p_element.get().stream()
                          .map( this::map )
-                         .filter( Objects::nonNull )
+                         .filter( StringUtils::isNotEmpty )
                          .collect( Collectors.toList() ),
-                ", "
+                ","
         );
 
-        return p_element.get().size() == 1 ? l_child : MessageFormat.format( "Sequence({0})", l_child );
+        if ( l_child.isEmpty() )
+            return SKIP;
+
+        return p_element.get().size() == 1 ? l_child : MessageFormat.format( "[\"Sequence\",{0}]", l_child );
     }
 
     @Override
     protected final String terminalvalue( final IGrammarSimpleElement<?> p_element )
     {
         return MessageFormat.format(
-                "Terminal(''{0}'', ''#{1}'')",
-                StringEscapeUtils.escapeEcmaScript( CHTML.removequotes( p_element.get() ) ),
+                "[\"Terminal\",\"{0}\",\"#{1}\"]",
+                StringEscapeUtils.escapeJson( CHTML.removequotes( p_element.get() ) ),
                 CHTML.linkhash( p_element.get() )
         );
     }
@@ -241,8 +368,8 @@ final class CHTML extends IBaseTemplate
     protected final String nonterminal( final IGrammarIdentifier p_element )
     {
         return MessageFormat.format(
-                "NonTerminal(''{0}'', ''#{1}'')",
-                CHTML.removequotes( p_element.get() ),
+                "[\"NonTerminal\",\"{0}\",\"#{1}\"]",
+                StringEscapeUtils.escapeJson( CHTML.removequotes( p_element.get() ) ),
                 CHTML.linkhash( p_element.get() )
         );
     }
@@ -251,9 +378,9 @@ final class CHTML extends IBaseTemplate
     protected final String negation( final IGrammarElement p_element )
     {
         return MessageFormat.format(
-                "Sequence( Comment(''{0}''), {1} )",
-                StringEscapeUtils.escapeEcmaScript( CCommon.languagestring( this, "htmlnegation" ) ),
-                this.map( p_element )
+                "[\"Sequence\",[\"Comment\",\"{0}\"],{1}]",
+                StringEscapeUtils.escapeJson( CCommon.languagestring( this, "htmlnegation" ) ),
+                StringUtils.defaultIfEmpty( this.map( p_element ), SKIP )
         );
     }
 
@@ -263,13 +390,13 @@ final class CHTML extends IBaseTemplate
         switch ( p_cardinality )
         {
             case OPTIONAL:
-                return MessageFormat.format( "Optional({0})", p_element );
+                return MessageFormat.format( "[\"Optional\",{0}]", p_element );
 
             case ZEROORMORE:
-                return MessageFormat.format( "ZeroOrMore({0})", p_element );
+                return MessageFormat.format( "[\"ZeroOrMore\",{0}]", p_element );
 
             case ONEORMORE:
-                return MessageFormat.format( "OneOrMore({0})", p_element );
+                return MessageFormat.format( "[\"OneOrMore\",{0}]", p_element );
 
             default:
                 return p_element;
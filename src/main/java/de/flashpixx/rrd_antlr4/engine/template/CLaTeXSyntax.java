@@ -23,8 +23,6 @@
 
 package de.flashpixx.rrd_antlr4.engine.template;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import de.flashpixx.rrd_antlr4.CCommon;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarChoice;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarCollection;
@@ -35,11 +33,12 @@ import de.flashpixx.rrd_antlr4.antlr.IGrammarIdentifier;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarSimpleElement;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -55,9 +54,9 @@ final class CLaTeXSyntax extends IBaseTemplate
      */
     private IGrammarComplexElement m_grammar;
     /**
-     * rules table for text representation
+     * rules store for text representation
      */
-    private final Table<String, String, String> m_rules = HashBasedTable.create();
+    private final CRuleStore m_rules = new CRuleStore();
 
     /**
      * ctor
@@ -78,42 +77,86 @@ final class CLaTeXSyntax extends IBaseTemplate
     }
 
     @Override
-    public final void postprocess( final Path p_output ) throws IOException, URISyntaxException
-    {
-        this.copy( "index.tex", p_output );
-
-        // replace content
-        this.replace(
-                new File( p_output.toString(), "/index.tex" ),
-
-                // set title
-                "-grammartitle-", CCommon.languagestring( this, "section", m_grammar.id() ),
-
-                // set grammar documentation
-                "-grammardocumentation-", m_grammar.documentation(),
-
-                // set text rules
-                "-rules-", StringUtils.join(
-                        m_rules.rowMap().entrySet().stream().sorted( ( n, m ) -> n.getKey().compareToIgnoreCase( m.getKey() ) )
-                               .map( i -> MessageFormat.format(
-                                       "\\subsection*'{'{0}'}'\n"
-                                       + "\\begin'{'grammar'}'"
-                                       + "\n{1}\n"
-                                       + "\\end'{'grammar'}'",
-                                       CCommon.languagestring( this, "subsectiongrammar", i.getKey() ),
-                                       StringUtils.join(
-                                               i.getValue().entrySet().stream()
-                                                .sorted( ( n, m ) -> n.getKey().compareToIgnoreCase( m.getKey() ) )
-                                                .map( Map.Entry::getValue )
-                                                .collect( Collectors.toList() ),
-                                               "\n"
-                                       ).trim()
-                                     )
-                               )
-                               .collect( Collectors.toList() ),
-                        "\n\n"
-                )
-        );
+    public final void assets( final Path p_assets ) throws IOException, URISyntaxException
+    {
+    }
+
+    @Override
+    public final void postprocess( final Path p_output, final Path p_assets ) throws IOException, URISyntaxException
+    {
+        try
+        {
+            this.write( "index.tex", p_output, this.values() );
+        }
+        finally
+        {
+            m_rules.close();
+        }
+    }
+
+    @Override
+    public final void postprocess( final Writer p_output, final String p_assets ) throws IOException, URISyntaxException
+    {
+        try
+        {
+            this.write( "index.tex", p_output, this.values() );
+        }
+        finally
+        {
+            m_rules.close();
+        }
+    }
+
+    /**
+     * returns the placeholder values of the index document
+     *
+     * @return map with placeholder and value
+     */
+    private Map<String, CPlaceholderTemplate.IValue> values()
+    {
+        final Map<String, CPlaceholderTemplate.IValue> l_values = new HashMap<>();
+
+        // set title
+        l_values.put( "-grammartitle-", i -> i.write( CCommon.languagestring( this, "section", m_grammar.id() ) ) );
+
+        // set grammar documentation
+        l_values.put( "-grammardocumentation-", i -> i.write( m_grammar.documentation() ) );
+
+        // set text rules, the rules are streamed from the store
+        l_values.put( "-rules-", this::rules );
+
+        return l_values;
+    }
+
+    /**
+     * writes the rules
+     *
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    private void rules( final Writer p_writer ) throws IOException
+    {
+        String l_separator = "";
+        for ( final String l_grammar : m_rules.grammars() )
+        {
+            p_writer.write( l_separator );
+            p_writer.write( MessageFormat.format(
+                    "\\subsection*'{'{0}'}'\n"
+                    + "\\begin'{'grammar'}'\n",
+                    CCommon.languagestring( this, "subsectiongrammar", l_grammar )
+            ) );
+
+            String l_ruleseparator = "";
+            for ( final String l_rule : m_rules.rules( l_grammar ) )
+            {
+                p_writer.write( l_ruleseparator );
+                m_rules.write( l_grammar, l_rule, p_writer );
+                l_ruleseparator = "\n\n";
+            }
+
+            p_writer.write( "\n\\end{grammar}" );
+            l_separator = "\n\n";
+        }
     }
 
     @Override
@@ -133,7 +176,7 @@ final class CLaTeXSyntax extends IBaseTemplate
                 p_grammar.id(),
                 p_element.id(),
                 MessageFormat.format(
-                        "<{0}> ::= {1}\n",
+                        "<{0}> ::= {1}",
                         p_element.id(),
                         this.map( p_element )
                 )
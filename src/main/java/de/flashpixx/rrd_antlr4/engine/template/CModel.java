@@ -0,0 +1,135 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarCodec;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * template for the binary model export, which
+ * can be read with CGrammarCodec.readall
+ *
+ * @note the models are written while they are passed,
+ * so the output is not buffered
+ */
+final class CModel implements ITemplate
+{
+    /**
+     * template name
+     */
+    private final String m_name;
+    /**
+     * model writer
+     */
+    private CGrammarCodec.CWriter m_writer;
+
+    /**
+     * ctor
+     *
+     * @param p_name template name
+     */
+    CModel( final String p_name )
+    {
+        m_name = p_name.trim().toLowerCase();
+    }
+
+    @Override
+    public final String index()
+    {
+        return "grammar.rrdm";
+    }
+
+    @Override
+    public final String name()
+    {
+        return m_name;
+    }
+
+    @Override
+    public final void preprocess( final Path p_output ) throws IOException, URISyntaxException
+    {
+        m_writer = new CGrammarCodec.CWriter( Files.newOutputStream( p_output.resolve( this.index() ) ) );
+    }
+
+    @Override
+    public final void postprocess( final Path p_output, final Path p_assets ) throws IOException, URISyntaxException
+    {
+        m_writer.close();
+    }
+
+    @Override
+    public final void postprocess( final Writer p_output, final String p_assets ) throws IOException, URISyntaxException
+    {
+        throw new IOException( CCommon.languagestring( this, "document" ) );
+    }
+
+    @Override
+    public final void assets( final Path p_assets ) throws IOException, URISyntaxException
+    {
+    }
+
+    @Override
+    public final void model( final IGrammarModel p_model )
+    {
+        try
+        {
+            m_writer.write( p_model );
+        }
+        catch ( final IOException l_exception )
+        {
+            try
+            {
+                m_writer.close();
+            }
+            catch ( final IOException l_close )
+            {
+                l_exception.addSuppressed( l_close );
+            }
+            throw new UncheckedIOException( l_exception );
+        }
+    }
+
+    @Override
+    public final IGrammarComplexElement grammar( final IGrammarComplexElement p_grammar )
+    {
+        return p_grammar;
+    }
+
+    @Override
+    public final IGrammarComplexElement element( final IGrammarComplexElement p_grammar, final IGrammarComplexElement p_element )
+    {
+        return p_element;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * precompiled template file, the content is split
+ * into literal parts and placeholders
+ */
+final class CPlaceholderTemplate
+{
+    /**
+     * literal parts, the i-th literal is followed by the i-th placeholder
+     */
+    private final String[] m_literals;
+    /**
+     * placeholders
+     */
+    private final String[] m_placeholders;
+
+    /**
+     * ctor
+     *
+     * @param p_content template content
+     * @param p_placeholders placeholders
+     */
+    CPlaceholderTemplate( final String p_content, final Set<String> p_placeholders )
+    {
+        final List<String> l_literals = new ArrayList<>();
+        final List<String> l_placeholders = new ArrayList<>();
+
+        int l_position = 0;
+        while ( true )
+        {
+            // find the next placeholder
+            int l_next = -1;
+            String l_placeholder = null;
+            for ( final String i : p_placeholders )
+            {
+                final int l_index = i.isEmpty() ? -1 : p_content.indexOf( i, l_position );
+                if ( ( l_index >= 0 ) && ( ( l_next < 0 ) || ( l_index < l_next ) ) )
+                {
+                    l_next = l_index;
+                    l_placeholder = i;
+                }
+            }
+
+            if ( l_placeholder == null )
+                break;
+
+            l_literals.add( p_content.substring( l_position, l_next ) );
+            l_placeholders.add( l_placeholder );
+            l_position = l_next + l_placeholder.length();
+        }
+
+        l_literals.add( p_content.substring( l_position ) );
+
+        m_literals = l_literals.toArray( new String[0] );
+        m_placeholders = l_placeholders.toArray( new String[0] );
+    }
+
+    /**
+     * writes the template in a single pass
+     *
+     * @param p_writer writer
+     * @param p_values map with placeholder and value
+     * @throws IOException on io errors
+     */
+    final void write( final Writer p_writer, final Map<String, IValue> p_values ) throws IOException
+    {
+        for ( int i = 0; i < m_placeholders.length; i++ )
+        {
+            p_writer.write( m_literals[i] );
+
+            final IValue l_value = p_values.get( m_placeholders[i] );
+            if ( l_value != null )
+                l_value.write( p_writer );
+        }
+        p_writer.write( m_literals[m_literals.length - 1] );
+    }
+
+
+    /**
+     * value of a placeholder, which is written directly
+     */
+    @FunctionalInterface
+    interface IValue
+    {
+
+        /**
+         * writes the value
+         *
+         * @param p_writer writer
+         * @throws IOException on io errors
+         */
+        void write( final Writer p_writer ) throws IOException;
+
+    }
+
+}
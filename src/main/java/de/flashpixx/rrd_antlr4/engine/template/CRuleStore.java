@@ -0,0 +1,298 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * sorted storage of the rendered rules, which spills
+ * the rule text into a temporary segment file
+ *
+ * @note the grammar and rule names are kept in memory in sorted order (case-insensitive
+ * first, so rules which differ only in case are kept both). If the text which is held
+ * in memory exceeds the threshold, all texts are appended to the segment file and only
+ * their position is kept, so the memory is bounded by the rule names and the threshold.
+ * The document is assembled by reading the segments in sorted order and the
+ * segment file is deleted on closing.
+ */
+final class CRuleStore implements AutoCloseable
+{
+    /**
+     * default number of characters which are held in memory
+     */
+    static final long DEFAULTTHRESHOLD = 4 * 1024 * 1024;
+    /**
+     * order of grammar and rule names
+     */
+    private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER.thenComparing( Comparator.naturalOrder() );
+    /**
+     * number of characters which are held in memory
+     */
+    private final long m_threshold;
+    /**
+     * grammar name, rule name and rule text or segment
+     */
+    private final Map<String, Map<String, Object>> m_rules = new TreeMap<>( ORDER );
+    /**
+     * rules of a grammar and rule name, which texts are held in memory
+     */
+    private final List<Pair<Map<String, Object>, String>> m_memory = new ArrayList<>();
+    /**
+     * number of characters in memory
+     */
+    private long m_size;
+    /**
+     * segment file or null
+     */
+    private Path m_file;
+    /**
+     * segment file channel or null
+     */
+    private FileChannel m_channel;
+
+    /**
+     * ctor
+     */
+    CRuleStore()
+    {
+        this( DEFAULTTHRESHOLD );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_threshold number of characters which are held in memory
+     */
+    CRuleStore( final long p_threshold )
+    {
+        m_threshold = p_threshold;
+    }
+
+    /**
+     * adds a rule
+     *
+     * @param p_grammar grammar name
+     * @param p_rule rule name
+     * @param p_text rule text
+     * @throws UncheckedIOException on spilling errors, because it is called by the template callbacks
+     */
+    final void put( final String p_grammar, final String p_rule, final String p_text )
+    {
+        final Map<String, Object> l_rules = m_rules.computeIfAbsent( p_grammar, i -> new TreeMap<>( ORDER ) );
+        final Object l_replaced = l_rules.put( p_rule, p_text );
+
+        // a replaced text in memory is already listed, a replaced segment stays unused in the segment file
+        if ( l_replaced instanceof String )
+            m_size -= ( (String) l_replaced ).length();
+        else
+            m_memory.add( new ImmutablePair<>( l_rules, p_rule ) );
+        m_size += p_text.length();
+
+        if ( m_size <= m_threshold )
+            return;
+
+        try
+        {
+            this.spill();
+        }
+        catch ( final IOException l_exception )
+        {
+            // the template is not postprocessed after an error, so the segment file is deleted here
+            this.discard( l_exception );
+            throw new UncheckedIOException( l_exception );
+        }
+    }
+
+    /**
+     * returns the grammar names
+     *
+     * @return sorted grammar names
+     */
+    final Collection<String> grammars()
+    {
+        return Collections.unmodifiableSet( m_rules.keySet() );
+    }
+
+    /**
+     * returns the rule names of a grammar
+     *
+     * @param p_grammar grammar name
+     * @return sorted rule names
+     */
+    final Collection<String> rules( final String p_grammar )
+    {
+        return Collections.unmodifiableSet( m_rules.getOrDefault( p_grammar, Collections.emptyMap() ).keySet() );
+    }
+
+    /**
+     * writes the text of a rule
+     *
+     * @param p_grammar grammar name
+     * @param p_rule rule name
+     * @param p_writer writer
+     * @throws IOException on io errors
+     */
+    final void write( final String p_grammar, final String p_rule, final Writer p_writer ) throws IOException
+    {
+        final Object l_text = m_rules.getOrDefault( p_grammar, Collections.emptyMap() ).get( p_rule );
+        if ( l_text instanceof CSegment )
+            p_writer.write( ( (CSegment) l_text ).read( m_channel ) );
+        else if ( l_text != null )
+            p_writer.write( l_text.toString() );
+    }
+
+    @Override
+    public final void close() throws IOException
+    {
+        m_rules.clear();
+        m_memory.clear();
+        try
+        {
+            if ( m_channel != null )
+                m_channel.close();
+        }
+        finally
+        {
+            // the segment file is deleted here only, so it is deleted even if the channel cannot be closed
+            if ( m_file != null )
+                Files.deleteIfExists( m_file );
+
+            m_channel = null;
+            m_file = null;
+        }
+    }
+
+    /**
+     * closes the store after an error
+     *
+     * @param p_exception error
+     */
+    private void discard( final IOException p_exception )
+    {
+        try
+        {
+            this.close();
+        }
+        catch ( final IOException l_exception )
+        {
+            p_exception.addSuppressed( l_exception );
+        }
+    }
+
+    /**
+     * appends all texts in memory to the segment file
+     *
+     * @throws IOException on io errors
+     */
+    private void spill() throws IOException
+    {
+        if ( m_channel == null )
+        {
+            m_file = Files.createTempFile( "rrd", ".segments" );
+            m_channel = FileChannel.open( m_file, StandardOpenOption.READ, StandardOpenOption.WRITE );
+        }
+
+        // only the texts in memory are written, the spilled rules are not scanned again
+        for ( final Pair<Map<String, Object>, String> l_rule : m_memory )
+        {
+            final ByteBuffer l_bytes = StandardCharsets.UTF_8.encode( l_rule.getLeft().get( l_rule.getRight() ).toString() );
+            final long l_position = m_channel.size();
+            final int l_length = l_bytes.remaining();
+
+            while ( l_bytes.hasRemaining() )
+                m_channel.write( l_bytes, l_position + l_length - l_bytes.remaining() );
+
+            l_rule.getLeft().put( l_rule.getRight(), new CSegment( l_position, l_length ) );
+        }
+
+        m_memory.clear();
+        m_size = 0;
+    }
+
+
+    /**
+     * position of a text in the segment file
+     */
+    private static final class CSegment
+    {
+        /**
+         * byte position
+         */
+        private final long m_position;
+        /**
+         * byte length
+         */
+        private final int m_length;
+
+        /**
+         * ctor
+         *
+         * @param p_position byte position
+         * @param p_length byte length
+         */
+        CSegment( final long p_position, final int p_length )
+        {
+            m_position = p_position;
+            m_length = p_length;
+        }
+
+        /**
+         * reads the text
+         *
+         * @param p_channel segment file channel
+         * @return text
+         * @throws IOException on io errors
+         */
+        final String read( final FileChannel p_channel ) throws IOException
+        {
+            final ByteBuffer l_bytes = ByteBuffer.allocate( m_length );
+            while ( l_bytes.hasRemaining() )
+                if ( p_channel.read( l_bytes, m_position + l_bytes.position() ) < 0 )
+                    break;
+
+            l_bytes.flip();
+            return StandardCharsets.UTF_8.decode( l_bytes ).toString();
+        }
+    }
+
+}
@@ -0,0 +1,647 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarChoice;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarCollection;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarGroup;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarIdentifier;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarNegation;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarRule;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarSequence;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarSimpleElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarTerminal;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarVisitor;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * railroad diagram layout, which creates a static SVG image of a grammar element
+ *
+ * @note the layout follows the railroad-diagrams script, each element is a box with
+ * a width and an extent above (up) and below (down) of the main line. A box is drawn
+ * from left to right on the main line, so the layout is a pure function of the element
+ * and can run concurrently.
+ */
+final class CSVGRailroad
+{
+    /**
+     * arc radius
+     */
+    private static final int ARC = 10;
+    /**
+     * vertical separation
+     */
+    private static final int VERTICALSEPARATION = 8;
+    /**
+     * horizontal separation within a sequence
+     */
+    private static final int HORIZONTALSEPARATION = 10;
+    /**
+     * character width of the box text
+     */
+    private static final int CHARACTERWIDTH = 9;
+    /**
+     * half height of a box
+     */
+    private static final int BOXHEIGHT = 11;
+    /**
+     * diagram padding
+     */
+    private static final int PADDING = 20;
+    /**
+     * layout visitor
+     */
+    private static final IGrammarVisitor<IBox> LAYOUT = new CLayout();
+
+    /**
+     * ctor
+     */
+    private CSVGRailroad()
+    {
+    }
+
+    /**
+     * creates the SVG image of an element
+     *
+     * @param p_id image id
+     * @param p_element grammar element
+     * @return SVG string
+     */
+    static String svg( final String p_id, final IGrammarElement p_element )
+    {
+        final IBox l_box = CSVGRailroad.layout( p_element );
+        final int l_width = l_box.width() + 2 * PADDING + 4 * HORIZONTALSEPARATION;
+        final int l_height = l_box.up() + l_box.down() + 2 * PADDING;
+        final int l_top = PADDING + l_box.up();
+        final int l_end = PADDING + 2 * HORIZONTALSEPARATION + l_box.width();
+
+        final StringBuilder l_svg = new StringBuilder();
+        l_svg.append( MessageFormat.format(
+            "<svg class=\"railroad-diagram\" id=\"{0}\" width=\"{1}\" height=\"{2}\" viewBox=\"0 0 {1} {2}\" "
+            + "xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"><g transform=\"translate(.5 .5)\">",
+            p_id, Integer.toString( l_width ), Integer.toString( l_height )
+        ) );
+
+        // start and end marker
+        CSVGRailroad.path( l_svg, PADDING, l_top - BOXHEIGHT + 1, "v 20 m 10 -20 v 20 m -10 -10 h " + ( 2 * HORIZONTALSEPARATION ) );
+        CSVGRailroad.path( l_svg, l_end, l_top, "h " + ( 2 * HORIZONTALSEPARATION ) + " m -10 -10 v 20 m 10 -20 v 20" );
+
+        l_box.draw( l_svg, PADDING + 2 * HORIZONTALSEPARATION, l_top );
+        return l_svg.append( "</g></svg>" ).toString();
+    }
+
+    /**
+     * creates the layout of an element with its cardinality
+     *
+     * @param p_element element
+     * @return box
+     */
+    private static IBox layout( final IGrammarElement p_element )
+    {
+        if ( p_element == null )
+            return new CSkip();
+
+        final IBox l_box = p_element.accept( LAYOUT );
+        switch ( p_element.cardinality() )
+        {
+            case OPTIONAL:
+                return new CChoice( Stream.of( new CSkip(), l_box ).collect( Collectors.toList() ) );
+
+            case ZEROORMORE:
+                return new CChoice( Stream.of( new CSkip(), new COneOrMore( l_box ) ).collect( Collectors.toList() ) );
+
+            case ONEORMORE:
+                return new COneOrMore( l_box );
+
+            default:
+                return l_box;
+        }
+    }
+
+    /**
+     * appends a path
+     *
+     * @param p_svg SVG
+     * @param p_left start x-position
+     * @param p_top start y-position
+     * @param p_path relative path commands
+     */
+    private static void path( final StringBuilder p_svg, final int p_left, final int p_top, final String p_path )
+    {
+        p_svg.append( "<path d=\"M " ).append( p_left ).append( ' ' ).append( p_top ).append( ' ' ).append( p_path ).append( "\"/>" );
+    }
+
+    /**
+     * appends a horizontal line
+     *
+     * @param p_svg SVG
+     * @param p_left start x-position
+     * @param p_top y-position
+     * @param p_length length
+     */
+    private static void line( final StringBuilder p_svg, final int p_left, final int p_top, final int p_length )
+    {
+        if ( p_length > 0 )
+            CSVGRailroad.path( p_svg, p_left, p_top, "h " + p_length );
+    }
+
+
+    /**
+     * visitor to create the boxes
+     */
+    private static final class CLayout implements IGrammarVisitor<IBox>
+    {
+
+        @Override
+        public final IBox grammar( final IGrammarComplexElement p_element )
+        {
+            return new CSkip();
+        }
+
+        @Override
+        public final IBox rule( final IGrammarRule p_element )
+        {
+            return CSVGRailroad.layout( p_element.children() );
+        }
+
+        @Override
+        public final IBox terminal( final IGrammarTerminal p_element )
+        {
+            return CSVGRailroad.layout( p_element.children() );
+        }
+
+        @Override
+        public final IBox identifier( final IGrammarIdentifier p_element )
+        {
+            return new CTextBox( IBaseTemplate.removequotes( p_element.get() ), "#" + IBaseTemplate.linkhash( p_element.get() ), false );
+        }
+
+        @Override
+        public final IBox terminalvalue( final IGrammarSimpleElement<?> p_element )
+        {
+            return new CTextBox( IBaseTemplate.removequotes( p_element.get() ), null, true );
+        }
+
+        @Override
+        public final IBox negation( final IGrammarNegation p_element )
+        {
+            return new CSequence(
+                Stream.of( new CComment( CCommon.languagestring( CHTML.class, "htmlnegation" ) ), CSVGRailroad.layout( p_element.inner() ) )
+                      .collect( Collectors.toList() )
+            );
+        }
+
+        @Override
+        public final IBox group( final IGrammarGroup p_element )
+        {
+            return CSVGRailroad.layout( p_element.element() );
+        }
+
+        @Override
+        public final IBox choice( final IGrammarChoice p_element )
+        {
+            return new CChoice( p_element.get().stream().filter( Objects::nonNull ).map( CSVGRailroad::layout ).collect( Collectors.toList() ) );
+        }
+
+        @Override
+        public final IBox sequence( final IGrammarSequence p_element )
+        {
+            return new CSequence( p_element.get().stream().filter( Objects::nonNull ).map( CSVGRailroad::layout ).collect( Collectors.toList() ) );
+        }
+
+        @Override
+        public final IBox empty( final IGrammarCollection p_element )
+        {
+            return new CSkip();
+        }
+    }
+
+
+    /**
+     * box of a diagram element
+     */
+    private interface IBox
+    {
+
+        /**
+         * width of the box
+         *
+         * @return width
+         */
+        int width();
+
+        /**
+         * extent above the main line
+         *
+         * @return height
+         */
+        int up();
+
+        /**
+         * extent below the main line
+         *
+         * @return height
+         */
+        int down();
+
+        /**
+         * draws the box
+         *
+         * @param p_svg SVG
+         * @param p_left left x-position
+         * @param p_top y-position of the main line
+         */
+        void draw( final StringBuilder p_svg, final int p_left, final int p_top );
+
+    }
+
+
+    /**
+     * empty box
+     */
+    private static final class CSkip implements IBox
+    {
+
+        @Override
+        public final int width()
+        {
+            return 0;
+        }
+
+        @Override
+        public final int up()
+        {
+            return 0;
+        }
+
+        @Override
+        public final int down()
+        {
+            return 0;
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+        }
+    }
+
+
+    /**
+     * box with text of a terminal or non-terminal
+     */
+    private static final class CTextBox implements IBox
+    {
+        /**
+         * text
+         */
+        private final String m_text;
+        /**
+         * link or null
+         */
+        private final String m_link;
+        /**
+         * rounded corners of a terminal
+         */
+        private final boolean m_terminal;
+
+        /**
+         * ctor
+         *
+         * @param p_text text
+         * @param p_link link or null
+         * @param p_terminal terminal box
+         */
+        CTextBox( final String p_text, final String p_link, final boolean p_terminal )
+        {
+            m_text = p_text;
+            m_link = p_link;
+            m_terminal = p_terminal;
+        }
+
+        @Override
+        public final int width()
+        {
+            return m_text.length() * CHARACTERWIDTH + 2 * HORIZONTALSEPARATION;
+        }
+
+        @Override
+        public final int up()
+        {
+            return BOXHEIGHT;
+        }
+
+        @Override
+        public final int down()
+        {
+            return BOXHEIGHT;
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+            p_svg.append( MessageFormat.format(
+                "<g class=\"{0}\"><rect x=\"{1}\" y=\"{2}\" width=\"{3}\" height=\"{4}\"{5}/>",
+                m_terminal ? "terminal" : "non-terminal",
+                Integer.toString( p_left ), Integer.toString( p_top - BOXHEIGHT ), Integer.toString( this.width() ), Integer.toString( 2 * BOXHEIGHT ),
+                m_terminal ? " rx=\"10\" ry=\"10\"" : ""
+            ) );
+
+            if ( m_link != null )
+                p_svg.append( "<a xlink:href=\"" ).append( StringEscapeUtils.escapeXml11( m_link ) ).append( "\">" );
+
+            p_svg.append( MessageFormat.format(
+                "<text x=\"{0}\" y=\"{1}\">{2}</text>",
+                Integer.toString( p_left + this.width() / 2 ), Integer.toString( p_top + 4 ), StringEscapeUtils.escapeXml11( m_text )
+            ) );
+
+            if ( m_link != null )
+                p_svg.append( "</a>" );
+
+            p_svg.append( "</g>" );
+        }
+    }
+
+
+    /**
+     * comment text without box
+     */
+    private static final class CComment implements IBox
+    {
+        /**
+         * text
+         */
+        private final String m_text;
+
+        /**
+         * ctor
+         *
+         * @param p_text text
+         */
+        CComment( final String p_text )
+        {
+            m_text = p_text;
+        }
+
+        @Override
+        public final int width()
+        {
+            return m_text.length() * CHARACTERWIDTH + HORIZONTALSEPARATION;
+        }
+
+        @Override
+        public final int up()
+        {
+            return BOXHEIGHT;
+        }
+
+        @Override
+        public final int down()
+        {
+            return VERTICALSEPARATION;
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+            p_svg.append( MessageFormat.format(
+                "<text class=\"comment\" x=\"{0}\" y=\"{1}\">{2}</text>",
+                Integer.toString( p_left + this.width() / 2 ), Integer.toString( p_top - 5 ), StringEscapeUtils.escapeXml11( m_text )
+            ) );
+            CSVGRailroad.line( p_svg, p_left, p_top, this.width() );
+        }
+    }
+
+
+    /**
+     * sequence of boxes
+     */
+    private static final class CSequence implements IBox
+    {
+        /**
+         * boxes
+         */
+        private final List<IBox> m_boxes;
+
+        /**
+         * ctor
+         *
+         * @param p_boxes boxes
+         */
+        CSequence( final List<IBox> p_boxes )
+        {
+            m_boxes = Collections.unmodifiableList( p_boxes );
+        }
+
+        @Override
+        public final int width()
+        {
+            return m_boxes.stream().mapToInt( IBox::width ).sum() + HORIZONTALSEPARATION * Math.max( 0, m_boxes.size() - 1 );
+        }
+
+        @Override
+        public final int up()
+        {
+            return m_boxes.stream().mapToInt( IBox::up ).max().orElse( 0 );
+        }
+
+        @Override
+        public final int down()
+        {
+            return m_boxes.stream().mapToInt( IBox::down ).max().orElse( 0 );
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+            int l_left = p_left;
+            for ( int i = 0; i < m_boxes.size(); i++ )
+            {
+                if ( i > 0 )
+                {
+                    CSVGRailroad.line( p_svg, l_left, p_top, HORIZONTALSEPARATION );
+                    l_left += HORIZONTALSEPARATION;
+                }
+
+                m_boxes.get( i ).draw( p_svg, l_left, p_top );
+                l_left += m_boxes.get( i ).width();
+            }
+        }
+    }
+
+
+    /**
+     * choice of boxes, the first box is on the main
+     * line, all other boxes are placed below
+     */
+    private static final class CChoice implements IBox
+    {
+        /**
+         * boxes
+         */
+        private final List<IBox> m_boxes;
+        /**
+         * offsets of the box lines to the main line
+         */
+        private final int[] m_offsets;
+
+        /**
+         * ctor
+         *
+         * @param p_boxes boxes
+         */
+        CChoice( final List<IBox> p_boxes )
+        {
+            m_boxes = Collections.unmodifiableList( p_boxes );
+            m_offsets = new int[m_boxes.size()];
+
+            for ( int i = 1; i < m_offsets.length; i++ )
+                m_offsets[i] = i == 1
+                               ? Math.max( 2 * ARC, m_boxes.get( 0 ).down() + VERTICALSEPARATION + m_boxes.get( 1 ).up() )
+                               : m_offsets[i - 1] + m_boxes.get( i - 1 ).down() + VERTICALSEPARATION + m_boxes.get( i ).up();
+        }
+
+        @Override
+        public final int width()
+        {
+            return m_boxes.stream().mapToInt( IBox::width ).max().orElse( 0 ) + ( m_boxes.size() > 1 ? 4 * ARC : 0 );
+        }
+
+        @Override
+        public final int up()
+        {
+            return m_boxes.isEmpty() ? 0 : m_boxes.get( 0 ).up();
+        }
+
+        @Override
+        public final int down()
+        {
+            return m_boxes.isEmpty() ? 0 : m_offsets[m_offsets.length - 1] + m_boxes.get( m_boxes.size() - 1 ).down();
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+            if ( m_boxes.size() == 1 )
+            {
+                m_boxes.get( 0 ).draw( p_svg, p_left, p_top );
+                return;
+            }
+
+            final int l_width = this.width();
+            for ( int i = 0; i < m_boxes.size(); i++ )
+            {
+                final IBox l_box = m_boxes.get( i );
+                final int l_top = p_top + m_offsets[i];
+
+                if ( i == 0 )
+                    CSVGRailroad.line( p_svg, p_left, p_top, 2 * ARC );
+                else
+                {
+                    // arcs from the main line down to the box line and back
+                    CSVGRailroad.path(
+                        p_svg, p_left, p_top,
+                        MessageFormat.format( "a {0} {0} 0 0 1 {0} {0} v {1} a {0} {0} 0 0 0 {0} {0}", Integer.toString( ARC ), Integer.toString( m_offsets[i] - 2 * ARC ) )
+                    );
+                    CSVGRailroad.path(
+                        p_svg, p_left + l_width - 2 * ARC, l_top,
+                        MessageFormat.format( "a {0} {0} 0 0 0 {0} -{0} v -{1} a {0} {0} 0 0 1 {0} -{0}", Integer.toString( ARC ), Integer.toString( m_offsets[i] - 2 * ARC ) )
+                    );
+                }
+
+                l_box.draw( p_svg, p_left + 2 * ARC, l_top );
+                CSVGRailroad.line( p_svg, p_left + 2 * ARC + l_box.width(), l_top, l_width - 4 * ARC - l_box.width() + ( i == 0 ? 2 * ARC : 0 ) );
+            }
+        }
+    }
+
+
+    /**
+     * repetition of a box with a loop below
+     */
+    private static final class COneOrMore implements IBox
+    {
+        /**
+         * box
+         */
+        private final IBox m_box;
+
+        /**
+         * ctor
+         *
+         * @param p_box box
+         */
+        COneOrMore( final IBox p_box )
+        {
+            m_box = p_box;
+        }
+
+        @Override
+        public final int width()
+        {
+            return m_box.width() + 2 * ARC;
+        }
+
+        @Override
+        public final int up()
+        {
+            return m_box.up();
+        }
+
+        @Override
+        public final int down()
+        {
+            return Math.max( 2 * ARC, m_box.down() + VERTICALSEPARATION );
+        }
+
+        @Override
+        public final void draw( final StringBuilder p_svg, final int p_left, final int p_top )
+        {
+            CSVGRailroad.line( p_svg, p_left, p_top, ARC );
+            m_box.draw( p_svg, p_left + ARC, p_top );
+            CSVGRailroad.line( p_svg, p_left + ARC + m_box.width(), p_top, ARC );
+
+            // loop from the right end below the box back to the left end
+            CSVGRailroad.path(
+                p_svg, p_left + ARC + m_box.width(), p_top,
+                MessageFormat.format(
+                    "a {0} {0} 0 0 1 {0} {0} v {1} a {0} {0} 0 0 1 -{0} {0} h -{2} a {0} {0} 0 0 1 -{0} -{0} v -{1} a {0} {0} 0 0 1 {0} -{0}",
+                    Integer.toString( ARC ), Integer.toString( this.down() - 2 * ARC ), Integer.toString( m_box.width() )
+                )
+            );
+        }
+    }
+
+}
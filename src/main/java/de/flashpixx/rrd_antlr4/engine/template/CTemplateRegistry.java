@@ -0,0 +1,98 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import com.google.common.base.Suppliers;
+import de.flashpixx.rrd_antlr4.CCommon;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+
+/**
+ * registry of all templates, the built-in templates are
+ * defined by ETemplate, additional templates are discovered
+ * with the java.util.ServiceLoader on first access
+ */
+public final class CTemplateRegistry
+{
+    /**
+     * providers with upper-case name
+     */
+    private static final Supplier<Map<String, ITemplateProvider>> PROVIDERS = Suppliers.memoize( CTemplateRegistry::load );
+
+    /**
+     * ctor
+     */
+    private CTemplateRegistry()
+    {
+    }
+
+    /**
+     * returns a provider by its name
+     *
+     * @param p_name name, case insensitive
+     * @return provider
+     * @throws IllegalArgumentException if the template does not exist
+     */
+    public static ITemplateProvider get( final String p_name )
+    {
+        final ITemplateProvider l_provider = PROVIDERS.get().get( p_name.trim().toUpperCase() );
+        if ( l_provider == null )
+            throw new IllegalArgumentException( CCommon.languagestring( CTemplateRegistry.class, "unknowntemplate", p_name ) );
+
+        return l_provider;
+    }
+
+    /**
+     * returns all providers
+     *
+     * @return unmodifiable collection with providers
+     */
+    public static Collection<ITemplateProvider> providers()
+    {
+        return PROVIDERS.get().values();
+    }
+
+    /**
+     * loads the providers, built-in templates cannot be replaced
+     * and on equal names the first discovered provider is used
+     *
+     * @return unmodifiable map with upper-case name and provider
+     */
+    private static Map<String, ITemplateProvider> load()
+    {
+        final Map<String, ITemplateProvider> l_providers = new LinkedHashMap<>();
+        Arrays.stream( ETemplate.values() ).forEach( i -> l_providers.put( i.name(), i ) );
+        ServiceLoader.load( ITemplateProvider.class ).forEach( i -> l_providers.putIfAbsent( i.name().trim().toUpperCase(), i ) );
+
+        return Collections.unmodifiableMap( l_providers );
+    }
+
+}
@@ -25,20 +25,49 @@ package de.flashpixx.rrd_antlr4.engine.template;
 
 import de.flashpixx.rrd_antlr4.CCommon;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 
 /**
- * enum for template creation
+ * enum for built-in template creation
  */
-public enum ETemplate
+public enum ETemplate implements ITemplateProvider
 {
-    HTML,
-    LATEXSYNTAX;
+    HTML( ECapability.STREAMING, ECapability.THREADSAFE, ECapability.ASSETS ),
+    HTMLSVG( ECapability.STREAMING, ECapability.THREADSAFE, ECapability.ASSETS ),
+    LATEXSYNTAX( ECapability.STREAMING, ECapability.THREADSAFE ),
+    MODEL( ECapability.STREAMING, ECapability.THREADSAFE );
+
+    /**
+     * capabilities
+     */
+    private final Set<ECapability> m_capabilities;
+
+    /**
+     * ctor
+     *
+     * @param p_capabilities capabilities
+     */
+    ETemplate( final ECapability... p_capabilities )
+    {
+        m_capabilities = Collections.unmodifiableSet( EnumSet.copyOf( Arrays.asList( p_capabilities ) ) );
+    }
+
+    @Override
+    public final Set<ECapability> capabilities()
+    {
+        return m_capabilities;
+    }
 
     /**
      * creates a new de.template
      *
      * @return template
      */
+    @Override
     public ITemplate generate()
     {
         switch ( this )
@@ -46,9 +75,15 @@ public enum ETemplate
             case HTML:
                 return new CHTML( HTML.toString() );
 
+            case HTMLSVG:
+                return new CHTML( HTMLSVG.toString(), HTML.toString(), true );
+
             case LATEXSYNTAX:
                 return new CLaTeXSyntax( LATEXSYNTAX.toString() );
 
+            case MODEL:
+                return new CModel( MODEL.toString() );
+
             default:
                 throw new IllegalStateException( CCommon.languagestring( this, "unknowntype", this ) );
         }
@@ -23,27 +23,29 @@
 
 package de.flashpixx.rrd_antlr4.engine.template;
 
-import com.aol.cyclops.sequence.SequenceM;
 import de.flashpixx.rrd_antlr4.CCommon;
-import de.flashpixx.rrd_antlr4.CStringReplace;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarChoice;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarCollection;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarElement;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarGroup;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarIdentifier;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarNegation;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarRule;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarSequence;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarSimpleElement;
 import de.flashpixx.rrd_antlr4.antlr.IGrammarTerminal;
-import org.apache.commons.io.FileUtils;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarVisitor;
+import org.apache.commons.io.IOUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.math.BigInteger;
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -51,6 +53,13 @@ import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -58,15 +67,39 @@ import java.text.MessageFormat;
  */
 public abstract class IBaseTemplate implements ITemplate
 {
+    /**
+     * precompiled template files
+     */
+    private static final Map<String, CPlaceholderTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    /**
+     * maximum number of characters of the cached formatted elements
+     */
+    private static final long MAXIMUMRENDERED = 1024 * 1024;
 
     /**
      * template name
      */
     private final String m_name;
+    /**
+     * name of the resource directory
+     */
+    private final String m_resource;
     /**
      * index file name
      */
     private final String m_index;
+    /**
+     * visitor to call the sub routines
+     */
+    private final IGrammarVisitor<String> m_renderer = new CRenderer();
+    /**
+     * cache of formatted elements in access order
+     */
+    private final Map<IGrammarElement, String> m_rendered = new LinkedHashMap<>( 16, 0.75f, true );
+    /**
+     * number of characters of the cached formatted elements
+     */
+    private long m_renderedsize;
 
     /**
      * ctor
@@ -75,8 +108,21 @@ public abstract class IBaseTemplate implements ITemplate
      * @param p_index index file
      */
     public IBaseTemplate( final String p_name, final String p_index )
+    {
+        this( p_name, p_name, p_index );
+    }
+
+    /**
+     * ctor
+     *
+     * @param p_name template name
+     * @param p_resource name of the resource directory
+     * @param p_index index file
+     */
+    protected IBaseTemplate( final String p_name, final String p_resource, final String p_index )
     {
         m_name = p_name.trim().toLowerCase();
+        m_resource = p_resource.trim().toLowerCase();
         m_index = p_index;
     }
 
@@ -92,6 +138,11 @@ public abstract class IBaseTemplate implements ITemplate
         return m_name;
     }
 
+    @Override
+    public void model( final IGrammarModel p_model )
+    {
+    }
+
     /**
      * copies files from the directory of the template to the output directory
      *
@@ -105,65 +156,152 @@ public abstract class IBaseTemplate implements ITemplate
         final Path l_target = Paths.get( p_output.toString(), p_templatefile );
         Files.createDirectories( l_target.getParent() );
         Files.copy(
-                CCommon.resourceurl( MessageFormat.format( "{0}{1}{2}{3}", "de/flashpixx/rrd_antlr4/template/", m_name, "/", p_templatefile ) ).openStream(),
+                CCommon.resourceurl( MessageFormat.format( "{0}{1}{2}{3}", "de/flashpixx/rrd_antlr4/template/", m_resource, "/", p_templatefile ) ).openStream(),
                 l_target,
                 StandardCopyOption.REPLACE_EXISTING
         );
     }
 
     /**
-     * replaces the string within the file
+     * writes a template file of the template directory into the output
+     * directory and replaces the placeholders in a single pass
      *
-     * @param p_file file
-     * @param p_replacepair string tupels for replacing
+     * @param p_templatefile file within the template directory
+     * @param p_output output directory
+     * @param p_replacepair string tupels of placeholder and value
+     * @throws IOException on IO error
+     * @throws URISyntaxException on URL syntax error
      */
-    protected final void replace( final File p_file, final String... p_replacepair ) throws IOException
+    protected final void write( final String p_templatefile, final Path p_output, final String... p_replacepair ) throws IOException, URISyntaxException
     {
         if ( ( p_replacepair == null ) || ( p_replacepair.length % 2 != 0 ) )
-            throw new IllegalArgumentException( CCommon.languagestring( IBaseTemplate.class, "replaceerror", p_file ) );
+            throw new IllegalArgumentException( CCommon.languagestring( IBaseTemplate.class, "replaceerror", p_templatefile ) );
 
-        final CStringReplace l_content = new CStringReplace( FileUtils.readFileToString( p_file, Charset.forName( "UTF-8" ) ) );
-        SequenceM.rangeLong( 0, p_replacepair.length )
-                 .sliding( 2, 2 )
-                 .forEach( i -> l_content.replaceAll( p_replacepair[i.get( 0 ).intValue()], p_replacepair[i.get( 1 ).intValue()] ) );
-        FileUtils.write( p_file, l_content.get(), Charset.forName( "UTF-8" ) );
+        final Map<String, CPlaceholderTemplate.IValue> l_values = new HashMap<>();
+        for ( int i = 0; i < p_replacepair.length; i += 2 )
+        {
+            final String l_value = p_replacepair[i + 1];
+            l_values.put( p_replacepair[i], j -> j.write( l_value ) );
+        }
+
+        this.write( p_templatefile, p_output, l_values );
     }
 
     /**
-     * calls the sub routines to format the lement
+     * writes a template file of the template directory into the output
+     * directory and writes the placeholder values directly into the file
      *
-     * @param p_element grammat element or string
-     * @return string representation
+     * @param p_templatefile file within the template directory
+     * @param p_output output directory
+     * @param p_values map with placeholder and value
+     * @throws IOException on IO error
+     * @throws URISyntaxException on URL syntax error
      */
-    @SuppressWarnings( "unchecked" )
-    protected String map( final IGrammarElement p_element )
+    final void write( final String p_templatefile, final Path p_output, final Map<String, CPlaceholderTemplate.IValue> p_values ) throws IOException, URISyntaxException
     {
-        if ( p_element instanceof IGrammarIdentifier )
-            return this.cardinality( p_element.cardinality(), this.nonterminal( (IGrammarIdentifier) p_element ) );
+        final Path l_target = Paths.get( p_output.toString(), p_templatefile );
+        Files.createDirectories( l_target.getParent() );
+        try
+            (
+                final Writer l_writer = Files.newBufferedWriter( l_target, StandardCharsets.UTF_8 )
+            )
+        {
+            this.write( p_templatefile, l_writer, p_values );
+        }
+    }
 
-        if ( p_element instanceof IGrammarRule )
-            return this.cardinality( p_element.cardinality(), this.rule( (IGrammarRule) p_element ) );
+    /**
+     * writes a template file of the template directory into a
+     * writer and writes the placeholder values directly into it
+     *
+     * @param p_templatefile file within the template directory
+     * @param p_output writer
+     * @param p_values map with placeholder and value
+     * @throws IOException on IO error
+     * @throws URISyntaxException on URL syntax error
+     */
+    final void write( final String p_templatefile, final Writer p_output, final Map<String, CPlaceholderTemplate.IValue> p_values ) throws IOException, URISyntaxException
+    {
+        this.template( p_templatefile, p_values.keySet() ).write( p_output, p_values );
+    }
+
+    /**
+     * returns the precompiled template file, which
+     * is parsed once and shared by all instances
+     *
+     * @param p_templatefile file within the template directory
+     * @param p_placeholders placeholders
+     * @return template
+     * @throws IOException on IO error
+     * @throws URISyntaxException on URL syntax error
+     */
+    private CPlaceholderTemplate template( final String p_templatefile, final Set<String> p_placeholders ) throws IOException, URISyntaxException
+    {
+        final String l_file = MessageFormat.format( "{0}{1}{2}{3}", "de/flashpixx/rrd_antlr4/template/", m_resource, "/", p_templatefile );
+        final String l_key = l_file + new TreeSet<>( p_placeholders );
 
-        if ( p_element instanceof IGrammarSimpleElement<?> )
-            return this.cardinality( p_element.cardinality(), this.terminalvalue( (IGrammarSimpleElement<?>) p_element ) );
+        final CPlaceholderTemplate l_template = TEMPLATES.get( l_key );
+        if ( l_template != null )
+            return l_template;
 
-        if ( p_element instanceof IGrammarTerminal )
-            return this.cardinality( p_element.cardinality(), this.terminal( (IGrammarTerminal) p_element ) );
+        try
+            (
+                final InputStream l_stream = CCommon.resourceurl( l_file ).openStream()
+            )
+        {
+            final CPlaceholderTemplate l_new = new CPlaceholderTemplate( IOUtils.toString( l_stream, StandardCharsets.UTF_8 ), p_placeholders );
+            TEMPLATES.putIfAbsent( l_key, l_new );
+            return l_new;
+        }
+    }
 
+    /**
+     * calls the sub routines to format the element, structural equal
+     * elements are formatted once while they are within the cache
+     *
+     * @param p_element grammat element or string
+     * @return string representation
+     * @note rules are not cached, because each rule is formatted once, the
+     * cache is bounded by the number of characters and the least-recently used
+     * elements are removed, so rendered rules are not held by the template
+     */
+    protected String map( final IGrammarElement p_element )
+    {
+        if ( p_element == null )
+            return "";
 
-        if ( p_element instanceof IGrammarNegation )
-            return this.cardinality( p_element.cardinality(), this.negation( ( (IGrammarNegation) p_element ).inner() ) );
+        if ( p_element instanceof IGrammarComplexElement )
+            return this.cardinality( p_element.cardinality(), p_element.accept( m_renderer ) );
 
-        if ( p_element instanceof IGrammarGroup )
-            return this.cardinality( p_element.cardinality(), this.group( (IGrammarGroup) p_element ) );
+        // the map is modified during the recursive descent, so computeIfAbsent cannot be used
+        final String l_cached = m_rendered.get( p_element );
+        if ( l_cached != null )
+            return l_cached;
 
-        if ( p_element instanceof IGrammarChoice )
-            return this.cardinality( p_element.cardinality(), this.choice( (IGrammarChoice) p_element ) );
+        final String l_string = this.cardinality( p_element.cardinality(), p_element.accept( m_renderer ) );
+        if ( l_string.length() <= MAXIMUMRENDERED / 16 )
+            this.cache( p_element, l_string );
+        return l_string;
+    }
 
-        if ( p_element instanceof IGrammarSequence )
-            return this.cardinality( p_element.cardinality(), this.sequence( (IGrammarSequence) p_element ) );
+    /**
+     * adds a formatted element to the cache and removes
+     * the least-recently used elements if the cache is full
+     *
+     * @param p_element element
+     * @param p_string string representation
+     */
+    private void cache( final IGrammarElement p_element, final String p_string )
+    {
+        final String l_replaced = m_rendered.put( p_element, p_string );
+        m_renderedsize += p_string.length() - ( l_replaced == null ? 0 : l_replaced.length() );
 
-        return "";
+        final Iterator<String> l_iterator = m_rendered.values().iterator();
+        while ( ( m_renderedsize > MAXIMUMRENDERED ) && ( l_iterator.hasNext() ) )
+        {
+            m_renderedsize -= l_iterator.next().length();
+            l_iterator.remove();
+        }
     }
 
     /**
@@ -276,4 +414,72 @@ public abstract class IBaseTemplate implements ITemplate
      */
     protected abstract String negation( final IGrammarElement p_element );
 
+
+    /**
+     * visitor to dispatch the element to the sub routines
+     */
+    private final class CRenderer implements IGrammarVisitor<String>
+    {
+
+        @Override
+        public final String grammar( final IGrammarComplexElement p_element )
+        {
+            return "";
+        }
+
+        @Override
+        public final String rule( final IGrammarRule p_element )
+        {
+            return IBaseTemplate.this.rule( p_element );
+        }
+
+        @Override
+        public final String terminal( final IGrammarTerminal p_element )
+        {
+            return IBaseTemplate.this.terminal( p_element );
+        }
+
+        @Override
+        public final String identifier( final IGrammarIdentifier p_element )
+        {
+            return IBaseTemplate.this.nonterminal( p_element );
+        }
+
+        @Override
+        public final String terminalvalue( final IGrammarSimpleElement<?> p_element )
+        {
+            return IBaseTemplate.this.terminalvalue( p_element );
+        }
+
+        @Override
+        public final String negation( final IGrammarNegation p_element )
+        {
+            return IBaseTemplate.this.negation( p_element.inner() );
+        }
+
+        @Override
+        public final String group( final IGrammarGroup p_element )
+        {
+            return IBaseTemplate.this.group( p_element );
+        }
+
+        @Override
+        public final String choice( final IGrammarChoice p_element )
+        {
+            return IBaseTemplate.this.choice( p_element );
+        }
+
+        @Override
+        public final String sequence( final IGrammarSequence p_element )
+        {
+            return IBaseTemplate.this.sequence( p_element );
+        }
+
+        @Override
+        public final String empty( final IGrammarCollection p_element )
+        {
+            return "";
+        }
+    }
+
 }
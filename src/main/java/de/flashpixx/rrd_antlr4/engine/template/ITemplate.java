@@ -24,8 +24,10 @@
 package de.flashpixx.rrd_antlr4.engine.template;
 
 import de.flashpixx.rrd_antlr4.antlr.IGrammarComplexElement;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 
@@ -51,7 +53,7 @@ public interface ITemplate
     String name();
 
     /**
-     * preprocessing (before AST visiting)
+     * preprocessing (before the grammar model is passed)
      *
      * @param p_output output directory
      *
@@ -61,14 +63,46 @@ public interface ITemplate
     void preprocess( final Path p_output ) throws IOException, URISyntaxException;
 
     /**
-     * postprocessing (after AST visiting)
+     * postprocessing (after the grammar model is passed)
      *
      * @param p_output working directory
+     * @param p_assets directory of the static assets
      *
      * @throws IOException on io errors
      * @throws URISyntaxException on uri syntax
      */
-    void postprocess( final Path p_output ) throws IOException, URISyntaxException;
+    void postprocess( final Path p_output, final Path p_assets ) throws IOException, URISyntaxException;
+
+    /**
+     * postprocessing into the index document instead of the output
+     * directory (after the grammar model is passed, preprocessing is not called)
+     *
+     * @param p_output writer of the index document
+     * @param p_assets URL path of the static assets
+     *
+     * @throws IOException on io errors or if the template does not create a text document
+     * @throws URISyntaxException on uri syntax
+     */
+    void postprocess( final Writer p_output, final String p_assets ) throws IOException, URISyntaxException;
+
+    /**
+     * writes the static assets, which are
+     * referenced by the output files
+     *
+     * @param p_assets assets directory
+     *
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri syntax
+     */
+    void assets( final Path p_assets ) throws IOException, URISyntaxException;
+
+    /**
+     * is called on each grammar model before
+     * the grammar and the rules are passed
+     *
+     * @param p_model grammar model
+     */
+    void model( final IGrammarModel p_model );
 
     /**
      * is called on the grammar definition
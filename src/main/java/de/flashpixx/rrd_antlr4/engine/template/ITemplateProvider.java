@@ -0,0 +1,82 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.engine.template;
+
+import java.util.Set;
+
+
+/**
+ * provider of a template, which is registered with
+ * the java.util.ServiceLoader under
+ * META-INF/services/de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider
+ *
+ * @note the provider is a lightweight factory, the template is
+ * created only if the provider is requested for a generation
+ */
+public interface ITemplateProvider
+{
+
+    /**
+     * returns the unique name of the template,
+     * which is used as option value
+     *
+     * @return name
+     */
+    String name();
+
+    /**
+     * returns the capabilities of the template
+     *
+     * @return unmodifiable set with capabilities
+     */
+    Set<ECapability> capabilities();
+
+    /**
+     * creates a new template instance
+     *
+     * @return template
+     */
+    ITemplate generate();
+
+    /**
+     * enum define template capabilities
+     */
+    enum ECapability
+    {
+        /**
+         * the output is written without buffering the whole document
+         */
+        STREAMING,
+        /**
+         * templates can run concurrently, otherwise all
+         * templates of the provider are run one after another
+         */
+        THREADSAFE,
+        /**
+         * the template writes static assets
+         */
+        ASSETS;
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.generator;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.engine.template.CTemplateRegistry;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+/**
+ * manifest of the generated outputs
+ *
+ * @note for each grammar and template the manifest stores the output index file
+ * and a hash over the package version, the language, the shared assets mode, the template name,
+ * the documentation clean rules, the grammar file and all transitive imports (name, resolved file and content).
+ * The import names are stored with the grammar, because they are defined by the
+ * content of the grammar and the imports, which are both part of the hash.
+ * An output is outdated if the hash differs or the index file does not exist.
+ */
+final class CManifest
+{
+    /**
+     * file name of the manifest
+     */
+    private static final String FILENAME = ".rrd-manifest";
+    /**
+     * separator of the import names
+     */
+    private static final String SEPARATOR = ",";
+    /**
+     * key prefix of a grammar entry
+     */
+    private static final String GRAMMARKEY = "grammar.";
+    /**
+     * manifest file or null if the manifest is not persistent
+     */
+    private final File m_file;
+    /**
+     * supplier of the current map with imported grammar files
+     */
+    private final Supplier<Map<String, File>> m_imports;
+    /**
+     * set with regex string for documentation cleaning
+     */
+    private final Set<String> m_docuclean;
+    /**
+     * entries of the grammar files
+     */
+    private final Map<File, CEntry> m_entries = new ConcurrentHashMap<>();
+    /**
+     * content hashes of the files with modification time and length
+     */
+    private final Map<File, CFileHash> m_hashes = new ConcurrentHashMap<>();
+    /**
+     * static assets are written once into the template root directory
+     */
+    private final boolean m_sharedassets;
+
+    /**
+     * ctor
+     *
+     * @param p_baseoutputdirectory base output directory
+     * @param p_persistent manifest is read and written
+     * @param p_imports supplier of the current map with imported grammar files
+     * @param p_docuclean set with documentation strings
+     * @param p_sharedassets static assets are written once into the template root directory
+     */
+    CManifest( final File p_baseoutputdirectory, final boolean p_persistent, final Supplier<Map<String, File>> p_imports, final Set<String> p_docuclean,
+               final boolean p_sharedassets
+    )
+    {
+        m_imports = p_imports;
+        m_sharedassets = p_sharedassets;
+        m_docuclean = p_docuclean;
+        m_file = p_persistent ? new File( p_baseoutputdirectory, FILENAME ) : null;
+
+        if ( ( m_file != null ) && ( m_file.isFile() ) )
+            this.load();
+    }
+
+    /**
+     * returns the templates which must be generated
+     *
+     * @param p_grammar grammar file
+     * @param p_templates all templates
+     * @return set with outdated templates
+     */
+    final Set<ITemplateProvider> outdated( final File p_grammar, final Set<ITemplateProvider> p_templates )
+    {
+        final CEntry l_entry = m_entries.get( CManifest.normalize( p_grammar ) );
+        if ( ( m_file == null ) || ( l_entry == null ) )
+            return p_templates;
+
+        return Collections.unmodifiableSet(
+            p_templates.stream()
+                       .filter( i -> !l_entry.uptodate( i.name(), this.hash( p_grammar, i.name(), l_entry.m_dependencies ) ) )
+                       .collect( Collectors.toSet() )
+        );
+    }
+
+    /**
+     * updates the entry of a grammar after a successful generation
+     *
+     * @param p_grammar grammar file
+     * @param p_dependencies names of all transitive imports
+     * @param p_outputs map with template and index file
+     */
+    final void update( final File p_grammar, final Set<String> p_dependencies, final Map<ITemplateProvider, File> p_outputs )
+    {
+        final CEntry l_entry = m_entries.compute(
+            CManifest.normalize( p_grammar ),
+            ( i, j ) -> ( j == null ) || ( !j.m_dependencies.equals( p_dependencies ) ) ? new CEntry( p_dependencies ) : j
+        );
+
+        p_outputs.forEach( ( i, j ) -> l_entry.m_outputs.put(
+            i.name(),
+            new String[]{
+                m_file == null ? "" : this.hash( p_grammar, i.name(), p_dependencies ),
+                j.getAbsolutePath()
+            }
+        ) );
+    }
+
+    /**
+     * returns the output index files of a grammar
+     *
+     * @param p_grammar grammar file
+     * @return map with template name and index file
+     */
+    final Map<String, File> outputs( final File p_grammar )
+    {
+        final CEntry l_entry = m_entries.get( CManifest.normalize( p_grammar ) );
+        return l_entry == null
+               ? Collections.<String, File>emptyMap()
+               : Collections.unmodifiableMap(
+                   l_entry.m_outputs.entrySet().stream().collect( Collectors.toMap( Map.Entry::getKey, i -> new File( i.getValue()[1] ) ) )
+               );
+    }
+
+    /**
+     * returns the names of the transitive imports of a grammar
+     *
+     * @param p_grammar grammar file
+     * @return set with import names or null if the grammar is unknown
+     */
+    final Set<String> dependencies( final File p_grammar )
+    {
+        final CEntry l_entry = m_entries.get( CManifest.normalize( p_grammar ) );
+        return l_entry == null ? null : l_entry.m_dependencies;
+    }
+
+    /**
+     * writes the manifest if it is persistent
+     *
+     * @throws IOException on io errors
+     */
+    final void save() throws IOException
+    {
+        if ( m_file == null )
+            return;
+
+        final Properties l_properties = new Properties();
+        final File[] l_grammars = m_entries.keySet().toArray( new File[0] );
+        IntStream.range( 0, l_grammars.length ).forEach( i ->
+        {
+            final CEntry l_entry = m_entries.get( l_grammars[i] );
+            l_properties.setProperty( GRAMMARKEY + i, l_grammars[i].getPath() );
+            l_properties.setProperty( GRAMMARKEY + i + ".imports", String.join( SEPARATOR, l_entry.m_dependencies ) );
+            l_entry.m_outputs.forEach( ( k, v ) ->
+            {
+                l_properties.setProperty( GRAMMARKEY + i + ".template." + k + ".hash", v[0] );
+                l_properties.setProperty( GRAMMARKEY + i + ".template." + k + ".output", v[1] );
+            } );
+        } );
+
+        m_file.getParentFile().mkdirs();
+        try
+            (
+                final OutputStream l_stream = new FileOutputStream( m_file )
+            )
+        {
+            l_properties.store( l_stream, CCommon.version() );
+        }
+    }
+
+    /**
+     * reads the manifest, on errors the manifest is empty
+     */
+    private void load()
+    {
+        final Properties l_properties = new Properties();
+        try
+            (
+                final InputStream l_stream = new FileInputStream( m_file )
+            )
+        {
+            l_properties.load( l_stream );
+        }
+        catch ( final IOException l_exception )
+        {
+            return;
+        }
+
+        for ( int i = 0; l_properties.containsKey( GRAMMARKEY + i ); i++ )
+        {
+            final String l_prefix = GRAMMARKEY + i;
+            final String l_imports = l_properties.getProperty( l_prefix + ".imports", "" );
+            final CEntry l_entry = new CEntry(
+                l_imports.isEmpty()
+                ? Collections.<String>emptySet()
+                : Arrays.stream( l_imports.split( SEPARATOR ) ).collect( Collectors.toSet() )
+            );
+
+            CTemplateRegistry.providers()
+                             .stream()
+                             .map( ITemplateProvider::name )
+                             .filter( j -> l_properties.containsKey( l_prefix + ".template." + j + ".hash" ) )
+                             .forEach( j -> l_entry.m_outputs.put(
+                                 j,
+                                 new String[]{
+                                     l_properties.getProperty( l_prefix + ".template." + j + ".hash" ),
+                                     l_properties.getProperty( l_prefix + ".template." + j + ".output", "" )
+                                 }
+                             ) );
+
+            m_entries.put( new File( l_properties.getProperty( l_prefix ) ), l_entry );
+        }
+    }
+
+    /**
+     * calculates the input hash of a grammar and template
+     *
+     * @param p_grammar grammar file
+     * @param p_template template name
+     * @param p_dependencies names of all transitive imports
+     * @return hash or empty string if a file cannot be read
+     */
+    private String hash( final File p_grammar, final String p_template, final Set<String> p_dependencies )
+    {
+        try
+        {
+            final Hasher l_hasher = Hashing.sha256().newHasher()
+                                           .putString( CCommon.version(), StandardCharsets.UTF_8 )
+                                           .putString( Locale.getDefault().toLanguageTag(), StandardCharsets.UTF_8 )
+                                           .putBoolean( m_sharedassets )
+                                           .putString( p_template, StandardCharsets.UTF_8 );
+
+            for ( final String l_docuclean : m_docuclean.stream().sorted().collect( Collectors.toList() ) )
+                l_hasher.putInt( l_docuclean.length() ).putString( l_docuclean, StandardCharsets.UTF_8 );
+
+            l_hasher.putBytes( this.content( p_grammar ).asBytes() );
+
+            for ( final String l_name : p_dependencies.stream().sorted().collect( Collectors.toList() ) )
+            {
+                final File l_import = m_imports.get().get( l_name );
+                l_hasher.putInt( l_name.length() ).putString( l_name, StandardCharsets.UTF_8 );
+                if ( l_import != null )
+                    l_hasher.putString( CManifest.normalize( l_import ).getPath(), StandardCharsets.UTF_8 ).putBytes( this.content( l_import ).asBytes() );
+            }
+
+            return l_hasher.hash().toString();
+        }
+        catch ( final IOException l_exception )
+        {
+            return "";
+        }
+    }
+
+    /**
+     * returns the content hash of a file, the hash is
+     * reused as long as the file is not modified
+     *
+     * @param p_file file
+     * @return hash
+     * @throws IOException on io errors
+     */
+    private HashCode content( final File p_file ) throws IOException
+    {
+        final CFileHash l_hash = m_hashes.get( p_file );
+        if ( ( l_hash != null ) && ( l_hash.m_modified == p_file.lastModified() ) && ( l_hash.m_length == p_file.length() ) )
+            return l_hash.m_hash;
+
+        final CFileHash l_new = new CFileHash( p_file.lastModified(), p_file.length(), Files.asByteSource( p_file ).hash( Hashing.sha256() ) );
+        m_hashes.put( p_file, l_new );
+        return l_new.m_hash;
+    }
+
+    /**
+     * normalizes a file
+     *
+     * @param p_file file
+     * @return absolute normalized file
+     */
+    private static File normalize( final File p_file )
+    {
+        return p_file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+
+
+    /**
+     * manifest entry of a grammar
+     */
+    private static final class CEntry
+    {
+        /**
+         * names of the transitive imports
+         */
+        private final Set<String> m_dependencies;
+        /**
+         * template name with pair of hash and index file
+         */
+        private final Map<String, String[]> m_outputs = Collections.synchronizedMap( new LinkedHashMap<>() );
+
+        /**
+         * ctor
+         *
+         * @param p_dependencies names of the transitive imports
+         */
+        CEntry( final Set<String> p_dependencies )
+        {
+            m_dependencies = Collections.unmodifiableSet( p_dependencies );
+        }
+
+        /**
+         * checks if the output of a template is up-to-date
+         *
+         * @param p_template template name
+         * @param p_hash current input hash
+         * @return up-to-date flag
+         */
+        final boolean uptodate( final String p_template, final String p_hash )
+        {
+            final String[] l_output = m_outputs.get( p_template );
+            return ( l_output != null ) && ( !p_hash.isEmpty() ) && ( p_hash.equals( l_output[0] ) ) && ( new File( l_output[1] ).isFile() );
+        }
+    }
+
+
+    /**
+     * content hash of a file
+     */
+    private static final class CFileHash
+    {
+        /**
+         * modification time
+         */
+        private final long m_modified;
+        /**
+         * file length
+         */
+        private final long m_length;
+        /**
+         * content hash
+         */
+        private final HashCode m_hash;
+
+        /**
+         * ctor
+         *
+         * @param p_modified modification time
+         * @param p_length file length
+         * @param p_hash content hash
+         */
+        CFileHash( final long p_modified, final long p_length, final HashCode p_hash )
+        {
+            m_modified = p_modified;
+            m_length = p_length;
+            m_hash = p_hash;
+        }
+    }
+
+}
@@ -25,8 +25,11 @@ package de.flashpixx.rrd_antlr4.generator;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import de.flashpixx.rrd_antlr4.CCommon;
-import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import de.flashpixx.rrd_antlr4.engine.CMetrics;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -36,7 +39,12 @@ import org.apache.maven.reporting.AbstractMavenReportRenderer;
 import org.apache.maven.reporting.MavenReportRenderer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -45,6 +53,10 @@ import java.util.Set;
  */
 public final class CPlugin extends IBaseGenerator
 {
+    /**
+     * file name of the metrics within the report directory
+     */
+    private static final String METRICSFILE = "rrd-metrics.json";
     /**
      * report directory
      */
@@ -64,7 +76,11 @@ public final class CPlugin extends IBaseGenerator
     /**
      * map with grammar files, pair of template name and link
      */
-    private final Multimap<File, Pair<String, String>> m_files = HashMultimap.create();
+    private final Multimap<File, Pair<String, String>> m_files = Multimaps.synchronizedMultimap( HashMultimap.create() );
+    /**
+     * metrics
+     */
+    private final CMetrics m_metrics;
 
 
     /**
@@ -72,21 +88,26 @@ public final class CPlugin extends IBaseGenerator
      *
      * @param p_report maven project reference
      * @param p_reporttitle report title
+     * @param p_engine engine
      * @param p_baseoutputdirectory base output directory
      * @param p_grammarbase base directory of grammar files
      * @param p_imports set with imported grammar files
      * @param p_docuclean set with documentation strings
      * @param p_templates array with exporting templates
+     * @param p_incremental generates only outdated outputs
+     * @param p_failfast outstanding grammar files are cancelled on the first error
      */
-    public CPlugin( final AbstractMavenReport p_report, final String p_reporttitle, final File p_baseoutputdirectory, final File p_grammarbase,
-                    final Set<File> p_imports, final Set<String> p_docuclean, final Set<ETemplate> p_templates
+    public CPlugin( final AbstractMavenReport p_report, final String p_reporttitle, final CEngine p_engine, final File p_baseoutputdirectory,
+                    final File p_grammarbase, final Set<File> p_imports, final Set<String> p_docuclean, final Set<ITemplateProvider> p_templates,
+                    final boolean p_incremental, final boolean p_failfast
     )
     {
-        super( p_baseoutputdirectory, p_imports, p_docuclean, p_templates );
+        super( p_engine, p_baseoutputdirectory, () -> p_imports, p_docuclean, p_templates, p_incremental, p_failfast );
         m_grammarbase = p_grammarbase;
         m_reporttitle = p_reporttitle;
         m_report = new CReportGenerator( p_report.getSink() );
         m_reportdirectory = p_report.getReportOutputDirectory();
+        m_metrics = p_engine.metrics();
     }
 
 
@@ -94,11 +115,33 @@ public final class CPlugin extends IBaseGenerator
     @Override
     public final IGenerator finish()
     {
-        if ( !m_error )
+        super.finish();
+        if ( m_metrics.enabled() )
+            this.metrics();
+        if ( !m_error.get() )
             m_report.render();
         return this;
     }
 
+    /**
+     * writes the metrics as JSON into the report directory
+     */
+    private void metrics()
+    {
+        try
+            (
+                final Writer l_writer = Files.newBufferedWriter( m_reportdirectory.toPath().resolve( METRICSFILE ), StandardCharsets.UTF_8 )
+            )
+        {
+            m_metrics.json( l_writer );
+        }
+        catch ( final IOException l_exception )
+        {
+            System.err.println( CCommon.languagestring( this, "metricserror", l_exception.getMessage() ) );
+            m_error.set( true );
+        }
+    }
+
     @Override
     protected final File processoutputdirectory( final File p_grammar )
     {
@@ -108,23 +151,26 @@ public final class CPlugin extends IBaseGenerator
     @Override
     protected final IGenerator processmessages( final File p_grammar, final File p_outputdirectory, final Collection<String> p_messages )
     {
-        m_error = !p_messages.isEmpty();
-        if ( !m_error )
+        if ( !p_messages.isEmpty() )
+            m_error.set( true );
+        else
+        {
+            // links are read from the manifest, so skipped grammars are also listed
+            final Map<String, File> l_outputs = m_manifest.outputs( p_grammar );
             m_templates
                 .stream()
-                // generate template to get template data
-                .map( ETemplate::generate )
-                // create grammar file and pair with string name and output directory
+                .map( ITemplateProvider::name )
+                .filter( l_outputs::containsKey )
+                // create grammar file and pair with string name and index file
                 .forEach( i -> m_files.put(
                                    p_grammar,
                                    new ImmutablePair<>(
-                                       i.name(),
-                                       m_reportdirectory.toURI().relativize(
-                                           CCommon.outputdirectory( m_baseoutput, i, p_outputdirectory, i.index() ).toUri()
-                                       ).toString()
+                                       i,
+                                       m_reportdirectory.toURI().relativize( l_outputs.get( i ).toURI() ).toString()
                                    )
                           )
                 );
+        }
 
         return this;
     }
@@ -158,27 +204,51 @@ public final class CPlugin extends IBaseGenerator
             this.startTable();
             this.tableHeader( ArrayUtils.add( m_templates.stream().map( i -> "" ).toArray( String[]::new ), 0, "Grammar" ) );
 
-            m_files.asMap().entrySet().forEach( i -> {
+            // the synchronized multimap must be locked on iteration
+            synchronized ( m_files )
+            {
+                m_files.asMap().entrySet().forEach( i -> {
 
-                sink.tableRow();
+                    sink.tableRow();
 
-                sink.tableCell();
-                sink.text( m_grammarbase.toURI().relativize( i.getKey().toURI() ).toString() );
-                sink.tableCell_();
+                    sink.tableCell();
+                    sink.text( m_grammarbase.toURI().relativize( i.getKey().toURI() ).toString() );
+                    sink.tableCell_();
 
-                i.getValue()
-                    .forEach( j -> {
-                        sink.tableCell();
-                        sink.link( j.getRight() );
-                        sink.text( j.getLeft() );
-                        sink.tableCell_();
-                    } );
+                    i.getValue()
+                        .forEach( j -> {
+                            sink.tableCell();
+                            sink.link( j.getRight() );
+                            sink.text( j.getLeft() );
+                            sink.tableCell_();
+                        } );
 
-                sink.tableRow_();
-            } );
+                    sink.tableRow_();
+                } );
+            }
             this.endTable();
 
             this.endSection();
+
+            if ( m_metrics.enabled() )
+                this.metrics();
+        }
+
+        /**
+         * renders the metrics table
+         */
+        private void metrics()
+        {
+            this.startSection( CCommon.languagestring( CPlugin.class, "metrics" ) );
+
+            this.startTable();
+            this.tableHeader( CMetrics.HEADER );
+            m_metrics.table().forEach( i -> this.tableRow( i ) );
+            this.endTable();
+
+            this.link( METRICSFILE, METRICSFILE );
+
+            this.endSection();
         }
     }
 
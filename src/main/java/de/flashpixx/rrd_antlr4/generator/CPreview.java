@@ -0,0 +1,360 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4.generator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * preview generator, which serves the HTML output of the grammar
+ * files with a local HTTP server, nothing is written into the file system
+ *
+ * @note the grammar pages are rendered on each request from the models
+ * of the engine, so changed grammars must be invalidated with changed().
+ * Static assets are served from the classpath with caching headers.
+ */
+public final class CPreview implements IGenerator
+{
+    /**
+     * URL path of the static assets
+     */
+    private static final String ASSETS = "assets/";
+    /**
+     * cache control of generated responses
+     */
+    private static final String NOCACHE = "no-cache";
+    /**
+     * cache control of static assets
+     */
+    private static final String ASSETCACHE = "public, max-age=86400";
+    /**
+     * resource directory of the static assets
+     */
+    private static final String RESOURCES = "de/flashpixx/rrd_antlr4/template/html/";
+    /**
+     * content types of the asset file extensions
+     */
+    private static final Map<String, String> CONTENTTYPES = Collections.unmodifiableMap( Stream.of(
+        new String[]{"css", "text/css; charset=utf-8"},
+        new String[]{"js", "application/javascript; charset=utf-8"},
+        new String[]{"htm", "text/html; charset=utf-8"},
+        new String[]{"svg", "image/svg+xml"}
+    ).collect( Collectors.toMap( i -> i[0], i -> i[1] ) ) );
+    /**
+     * result generator error, the flag is only set to true
+     */
+    private final AtomicBoolean m_error = new AtomicBoolean();
+    /**
+     * engine instance
+     */
+    private final CEngine m_engine;
+    /**
+     * supplier of the imported grammar files
+     */
+    private final Supplier<Set<File>> m_importfiles;
+    /**
+     * map with imported grammar files, which is rebuilt on changes
+     */
+    private volatile Map<String, File> m_imports;
+    /**
+     * set with regex string for documentation cleaning
+     */
+    private final Set<String> m_docuclean;
+    /**
+     * server port
+     */
+    private final int m_port;
+    /**
+     * grammar files with the grammar name
+     */
+    private final Map<String, File> m_grammars = new ConcurrentSkipListMap<>( String.CASE_INSENSITIVE_ORDER );
+    /**
+     * number of worker threads of the server
+     */
+    private volatile int m_threads = 1;
+    /**
+     * server or null if the server is not started
+     */
+    private HttpServer m_server;
+
+    /**
+     * ctor
+     *
+     * @param p_engine engine
+     * @param p_imports supplier of the imported grammar files, which is read again on changes
+     * @param p_docuclean set with documentation strings
+     * @param p_port server port
+     */
+    public CPreview( final CEngine p_engine, final Supplier<Set<File>> p_imports, final Set<String> p_docuclean, final int p_port )
+    {
+        m_engine = p_engine;
+        m_docuclean = p_docuclean;
+        m_port = p_port;
+        m_importfiles = p_imports;
+        m_imports = IBaseGenerator.imports( p_imports.get() );
+    }
+
+    @Override
+    public final IGenerator generate( final File p_grammar )
+    {
+        m_grammars.putIfAbsent( FilenameUtils.removeExtension( p_grammar.getName() ), p_grammar );
+        return this;
+    }
+
+    @Override
+    public final IGenerator generate( final Stream<File> p_grammars, final int p_threads )
+    {
+        m_threads = Math.max( 1, p_threads );
+        p_grammars.forEach( this::generate );
+        return this;
+    }
+
+    @Override
+    public final IGenerator changed( final Collection<File> p_changed, final Stream<File> p_grammars, final int p_threads )
+    {
+        p_changed.forEach( m_engine::invalidate );
+
+        // import files can be created, renamed or deleted during a session, so the map is rebuilt
+        if ( p_changed.stream().anyMatch( i -> !i.isFile() || !m_imports.containsValue( i ) ) )
+            m_imports = IBaseGenerator.imports( m_importfiles.get() );
+
+        return this.generate( p_grammars, p_threads );
+    }
+
+    @Override
+    public final boolean hasError()
+    {
+        return m_error.get();
+    }
+
+    @Override
+    public final int cancelled()
+    {
+        return 0;
+    }
+
+    /**
+     * starts the server on the first call
+     *
+     * @return generator self reference
+     */
+    @Override
+    public final synchronized IGenerator finish()
+    {
+        if ( m_server != null )
+            return this;
+
+        try
+        {
+            m_server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), m_port ), 0 );
+            m_server.setExecutor( Executors.newFixedThreadPool( m_threads ) );
+            m_server.createContext( "/", this::handle );
+            m_server.start();
+
+            System.out.println( CCommon.languagestring( this, "started", "http://localhost:" + m_server.getAddress().getPort() + "/" ) );
+        }
+        catch ( final IOException l_exception )
+        {
+            m_error.set( true );
+            System.err.println( CCommon.languagestring( this, "starterror", l_exception.getMessage() ) );
+        }
+
+        return this;
+    }
+
+    /**
+     * handles a request
+     *
+     * @param p_exchange HTTP exchange
+     * @throws IOException on io errors
+     */
+    private void handle( final HttpExchange p_exchange ) throws IOException
+    {
+        try
+        {
+            final String l_path = p_exchange.getRequestURI().getPath().substring( 1 );
+            if ( ( !"GET".equals( p_exchange.getRequestMethod() ) ) && ( !"HEAD".equals( p_exchange.getRequestMethod() ) ) )
+                CPreview.send( p_exchange, 405, "text/plain; charset=utf-8", NOCACHE, new byte[0] );
+            else if ( l_path.isEmpty() )
+                this.index( p_exchange );
+            else if ( l_path.startsWith( ASSETS ) )
+                CPreview.asset( p_exchange, l_path.substring( ASSETS.length() ) );
+            else
+                this.grammar( p_exchange, l_path );
+        }
+        finally
+        {
+            p_exchange.close();
+        }
+    }
+
+    /**
+     * sends the list of grammars
+     *
+     * @param p_exchange HTTP exchange
+     * @throws IOException on io errors
+     */
+    private void index( final HttpExchange p_exchange ) throws IOException
+    {
+        final StringBuilder l_page = new StringBuilder();
+        l_page.append( "<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>" )
+              .append( StringEscapeUtils.escapeHtml4( CCommon.languagestring( this, "title" ) ) )
+              .append( "</title></head><body><ul>\n" );
+
+        m_grammars.keySet().forEach( i -> l_page.append( "<li><a href=\"" ).append( StringEscapeUtils.escapeHtml4( i ) ).append( "\">" )
+                                                .append( StringEscapeUtils.escapeHtml4( i ) ).append( "</a></li>\n" ) );
+
+        l_page.append( "</ul></body></html>" );
+        CPreview.send( p_exchange, 200, "text/html; charset=utf-8", NOCACHE, l_page.toString().getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * renders and sends the page of a grammar, the
+     * page is rendered completely before it is sent
+     *
+     * @param p_exchange HTTP exchange
+     * @param p_name grammar name
+     * @throws IOException on io errors
+     */
+    private void grammar( final HttpExchange p_exchange, final String p_name ) throws IOException
+    {
+        final File l_grammar = m_grammars.get( p_name );
+        if ( l_grammar == null )
+        {
+            CPreview.send( p_exchange, 404, "text/plain; charset=utf-8", NOCACHE, new byte[0] );
+            return;
+        }
+
+        final ByteArrayOutputStream l_page = new ByteArrayOutputStream();
+        try
+            (
+                final Writer l_writer = new OutputStreamWriter( l_page, StandardCharsets.UTF_8 )
+            )
+        {
+            m_engine.generate( ETemplate.HTML, m_engine.parse( l_grammar, m_docuclean, m_imports ), l_writer, ASSETS );
+        }
+        catch ( final IOException | URISyntaxException | RuntimeException l_exception )
+        {
+            CPreview.send( p_exchange, 500, "text/plain; charset=utf-8", NOCACHE, String.valueOf( l_exception.getMessage() ).getBytes( StandardCharsets.UTF_8 ) );
+            return;
+        }
+
+        CPreview.send( p_exchange, 200, "text/html; charset=utf-8", NOCACHE, l_page.toByteArray() );
+    }
+
+    /**
+     * sends a static asset of the classpath, the assets
+     * are versioned with the package version
+     *
+     * @param p_exchange HTTP exchange
+     * @param p_path path within the resource directory
+     * @throws IOException on io errors
+     */
+    private static void asset( final HttpExchange p_exchange, final String p_path ) throws IOException
+    {
+        final URL l_asset = Arrays.stream( p_path.split( "/" ) ).anyMatch( i -> i.isEmpty() || ".".equals( i ) || "..".equals( i ) )
+                            ? null
+                            : CPreview.class.getClassLoader().getResource( RESOURCES + p_path );
+        if ( l_asset == null )
+        {
+            CPreview.send( p_exchange, 404, "text/plain; charset=utf-8", NOCACHE, new byte[0] );
+            return;
+        }
+
+        final String l_etag = "\"" + CCommon.version() + "\"";
+        p_exchange.getResponseHeaders().set( "ETag", l_etag );
+        if ( l_etag.equals( p_exchange.getRequestHeaders().getFirst( "If-None-Match" ) ) )
+        {
+            CPreview.send( p_exchange, 304, null, ASSETCACHE, new byte[0] );
+            return;
+        }
+
+        try
+            (
+                final InputStream l_stream = l_asset.openStream()
+            )
+        {
+            CPreview.send(
+                p_exchange, 200,
+                CONTENTTYPES.getOrDefault( FilenameUtils.getExtension( p_path ).toLowerCase(), "application/octet-stream" ),
+                ASSETCACHE,
+                IOUtils.toByteArray( l_stream )
+            );
+        }
+    }
+
+    /**
+     * sends a response
+     *
+     * @param p_exchange HTTP exchange
+     * @param p_status status code
+     * @param p_type content type or null
+     * @param p_cache cache control
+     * @param p_body body
+     * @throws IOException on io errors
+     */
+    private static void send( final HttpExchange p_exchange, final int p_status, final String p_type, final String p_cache, final byte[] p_body )
+        throws IOException
+    {
+        if ( p_type != null )
+            p_exchange.getResponseHeaders().set( "Content-Type", p_type );
+        p_exchange.getResponseHeaders().set( "Cache-Control", p_cache );
+
+        final boolean l_body = ( p_body.length > 0 ) && ( !"HEAD".equals( p_exchange.getRequestMethod() ) );
+        p_exchange.sendResponseHeaders( p_status, l_body ? p_body.length : -1 );
+        if ( l_body )
+            p_exchange.getResponseBody().write( p_body );
+    }
+
+}
@@ -23,31 +23,73 @@
 
 package de.flashpixx.rrd_antlr4.generator;
 
-import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
 /**
- * generator of a standalone program
+ * generator of a standalone program, the error
+ * messages are reported after all grammar files are proceed
  */
 public final class CStandalone extends IBaseGenerator
 {
+    /**
+     * error messages of the grammar files
+     */
+    private final Map<File, Collection<String>> m_messages = new ConcurrentSkipListMap<>();
+    /**
+     * number of proceed grammar files
+     */
+    private final AtomicInteger m_processed = new AtomicInteger();
 
     /**
      * ctor
      *
+     * @param p_engine engine
      * @param p_baseoutputdirectory base output directory
-     * @param p_imports set with imported grammar files
+     * @param p_imports supplier of the imported grammar files, which is read again on changes
      * @param p_docuclean set with documentation strings
      * @param p_templates array with exporting templates
+     * @param p_incremental generates only outdated outputs
+     * @param p_failfast outstanding grammar files are cancelled on the first error
      */
-    public CStandalone( final File p_baseoutputdirectory, final Set<File> p_imports, final Set<String> p_docuclean, final Set<ETemplate> p_templates
+    public CStandalone( final CEngine p_engine, final File p_baseoutputdirectory, final Supplier<Set<File>> p_imports, final Set<String> p_docuclean,
+                        final Set<ITemplateProvider> p_templates, final boolean p_incremental, final boolean p_failfast
     )
     {
-        super( p_baseoutputdirectory, p_imports, p_docuclean, p_templates );
+        super( p_engine, p_baseoutputdirectory, p_imports, p_docuclean, p_templates, p_incremental, p_failfast );
+    }
+
+    @Override
+    public final IGenerator finish()
+    {
+        super.finish();
+
+        if ( !m_messages.isEmpty() )
+        {
+            System.err.println( CCommon.languagestring( this, "report", m_messages.size(), m_processed.get() ) );
+            m_messages.forEach( ( i, j ) ->
+            {
+                System.err.println( CCommon.languagestring( this, "grammar", i ) );
+                j.forEach( n -> System.err.println( "    " + n ) );
+            } );
+        }
+        if ( this.cancelled() > 0 )
+            System.err.println( CCommon.languagestring( this, "cancelled", this.cancelled() ) );
+
+        // the report is created for each run in watch mode
+        m_messages.clear();
+        m_processed.set( 0 );
+        return this;
     }
 
     @Override
@@ -59,8 +101,12 @@ public final class CStandalone extends IBaseGenerator
     @Override
     protected IGenerator processmessages( final File p_grammar, final File p_outputdirectory,  final Collection<String> p_messages )
     {
-        m_error = !p_messages.isEmpty();
-        p_messages.forEach( System.err::println );
+        m_processed.incrementAndGet();
+        if ( !p_messages.isEmpty() )
+        {
+            m_error.set( true );
+            m_messages.put( p_grammar, p_messages );
+        }
         return this;
     }
 
@@ -23,16 +23,27 @@
 
 package de.flashpixx.rrd_antlr4.generator;
 
+import de.flashpixx.rrd_antlr4.CCommon;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
 import de.flashpixx.rrd_antlr4.engine.CEngine;
-import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -43,85 +54,253 @@ import java.util.stream.Stream;
 public abstract class IBaseGenerator implements IGenerator
 {
     /**
-     * engine instance
-     */
-    private static final CEngine ENGINE = new CEngine();
-    /**
-     * result generator error
+     * result generator error, the flag is only set to true
      */
-    protected boolean m_error;
+    protected final AtomicBoolean m_error = new AtomicBoolean();
     /**
      * set of generator templates
      */
-    protected final Set<ETemplate> m_templates;
+    protected final Set<ITemplateProvider> m_templates;
     /**
      * base output directory
      */
     protected final File m_baseoutput;
     /**
-     * map with imported grammar files
+     * manifest of the generated outputs
      */
-    private final Map<String, File> m_imports;
+    protected final CManifest m_manifest;
+    /**
+     * number of grammar files, which are cancelled after an error
+     */
+    private final AtomicInteger m_cancelled = new AtomicInteger();
+    /**
+     * supplier of the imported grammar files
+     */
+    private final Supplier<Set<File>> m_importfiles;
+    /**
+     * map with imported grammar files, which is rebuilt on changes
+     */
+    private volatile Map<String, File> m_imports;
     /**
      * set with regex string for documentation cleaning
      */
     private final Set<String> m_docuclean;
+    /**
+     * engine instance
+     */
+    private final CEngine m_engine;
+    /**
+     * outstanding grammar files are cancelled on the first error
+     */
+    private final boolean m_failfast;
+    /**
+     * the current run is cancelled
+     */
+    private final AtomicBoolean m_cancel = new AtomicBoolean();
 
 
     /**
      * ctor
      *
+     * @param p_engine engine
      * @param p_baseoutputdirectory base output directory
      * @param p_templates array with exporting templates
-     * @param p_imports set with imported grammar files
+     * @param p_imports supplier of the imported grammar files, which is read again on changes
      * @param p_docuclean set with documentation strings
+     * @param p_incremental generates only outdated outputs
+     * @param p_failfast outstanding grammar files are cancelled on the first error
      */
-    protected IBaseGenerator( final File p_baseoutputdirectory, final Set<File> p_imports, final Set<String> p_docuclean, final Set<ETemplate> p_templates )
+    protected IBaseGenerator( final CEngine p_engine, final File p_baseoutputdirectory, final Supplier<Set<File>> p_imports, final Set<String> p_docuclean,
+                              final Set<ITemplateProvider> p_templates, final boolean p_incremental, final boolean p_failfast
+    )
     {
+        m_engine = p_engine;
+        m_failfast = p_failfast;
         m_docuclean = p_docuclean;
         m_templates = p_templates;
         m_baseoutput = p_baseoutputdirectory;
-        m_imports = Collections.unmodifiableMap( p_imports.parallelStream().collect( Collectors.toMap( i -> FilenameUtils.removeExtension( i.getName() ), i -> i ) ) );
+        m_importfiles = p_imports;
+        m_imports = IBaseGenerator.imports( p_imports.get() );
+        m_manifest = new CManifest( m_baseoutput, p_incremental, () -> m_imports, m_docuclean, p_engine.sharedassets() );
     }
 
 
+    /**
+     * creates the map of the imported grammar files
+     *
+     * @param p_imports imported grammar files
+     * @return unmodifiable map with grammar name and file
+     */
+    static Map<String, File> imports( final Set<File> p_imports )
+    {
+        return Collections.unmodifiableMap( p_imports.parallelStream().collect( Collectors.toMap( i -> FilenameUtils.removeExtension( i.getName() ), i -> i ) ) );
+    }
+
     @Override
     public final IGenerator generate( final File p_grammar )
     {
         final File l_outputdirectory = this.processoutputdirectory( p_grammar );
+        final Set<ITemplateProvider> l_templates = m_manifest.outdated( p_grammar, m_templates );
+        if ( l_templates.isEmpty() )
+            return this.messages( p_grammar, l_outputdirectory, Collections.<String>emptySet() );
+
         try
         {
-            return this.processmessages(
-                p_grammar, l_outputdirectory,
-                ENGINE.generate(
-                    m_baseoutput,
-                    l_outputdirectory,
+            final List<IGrammarModel> l_models = m_engine.parse( p_grammar, m_docuclean, m_imports );
+            final Collection<String> l_messages = m_engine.generate( m_baseoutput, l_outputdirectory, l_models, l_templates );
+
+            if ( l_messages.isEmpty() )
+                m_manifest.update(
                     p_grammar,
-                    m_docuclean,
-                    m_imports,
-                    m_templates
-                )
-            );
+                    l_models.stream().flatMap( i -> i.imports().stream() ).collect( Collectors.toSet() ),
+                    l_templates.stream().collect( Collectors.toMap( i -> i, i -> this.index( i.generate(), l_outputdirectory ) ) )
+                );
+
+            return this.messages( p_grammar, l_outputdirectory, l_messages );
         }
         catch ( final IOException l_exception )
         {
-            return this.processmessages( p_grammar, l_outputdirectory, Collections.unmodifiableSet( Stream.of( l_exception.getMessage() ).collect( Collectors.toSet() ) ) );
+            return this.messages( p_grammar, l_outputdirectory, Collections.unmodifiableSet( Stream.of( l_exception.getMessage() ).collect( Collectors.toSet() ) ) );
+        }
+
+    }
+
+    /**
+     * generates exports for grammar files concurrently
+     *
+     * @param p_grammars stream of grammar files
+     * @param p_threads number of worker threads
+     * @return generator self reference
+     * @note in fail-fast mode the grammar files, which are not started
+     * before the first error, are cancelled, running grammar files are finished
+     */
+    @Override
+    public final IGenerator generate( final Stream<File> p_grammars, final int p_threads )
+    {
+        m_cancel.set( false );
+        m_cancelled.set( 0 );
+        final ExecutorService l_pool = Executors.newFixedThreadPool( Math.max( 1, p_threads ) );
+        try
+        {
+            // grammar files are submitted while they are discovered
+            final List<Future<IGenerator>> l_tasks = p_grammars.map( i -> l_pool.submit( () -> this.task( i ) ) ).collect( Collectors.toList() );
+            for ( final Future<IGenerator> l_task : l_tasks )
+                l_task.get();
+
+            // all grammar files of the batch are parsed, so the DFA caches can be cleared safely
+            m_engine.cleardfa();
+        }
+        catch ( final InterruptedException l_exception )
+        {
+            m_error.set( true );
+            Thread.currentThread().interrupt();
+        }
+        catch ( final ExecutionException l_exception )
+        {
+            throw new RuntimeException( l_exception.getCause() );
+        }
+        finally
+        {
+            l_pool.shutdownNow();
         }
 
+        return this;
+    }
+
+    @Override
+    public final IGenerator changed( final Collection<File> p_changed, final Stream<File> p_grammars, final int p_threads )
+    {
+        p_changed.forEach( m_engine::invalidate );
+
+        // import files can be created, renamed or deleted during a session, so the map is rebuilt
+        if ( p_changed.stream().anyMatch( i -> !i.isFile() || !m_imports.containsValue( i ) ) )
+            m_imports = IBaseGenerator.imports( m_importfiles.get() );
+
+        final Set<File> l_files = p_changed.stream().map( i -> i.getAbsoluteFile().toPath().normalize().toFile() ).collect( Collectors.toSet() );
+        final Set<String> l_names = p_changed.stream().map( i -> FilenameUtils.removeExtension( i.getName() ) ).collect( Collectors.toSet() );
+
+        // grammars without dependencies are not generated successfully before, so they are generated again
+        return this.generate(
+            p_grammars.filter( i ->
+            {
+                final Set<String> l_dependencies = m_manifest.dependencies( i );
+                return ( l_dependencies == null )
+                       || ( l_files.contains( i.getAbsoluteFile().toPath().normalize().toFile() ) )
+                       || ( l_dependencies.stream().anyMatch( l_names::contains ) );
+            } ),
+            p_threads
+        );
+    }
+
+    /**
+     * runs a grammar file of the worker pool
+     *
+     * @param p_grammar grammar file
+     * @return generator self reference
+     */
+    private IGenerator task( final File p_grammar )
+    {
+        if ( !m_cancel.get() )
+            return this.generate( p_grammar );
+
+        m_cancelled.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * processes the error messages and cancels
+     * the current run in fail-fast mode on errors
+     *
+     * @param p_grammar input grammar file
+     * @param p_outputdirectory output directory
+     * @param p_messages error messages
+     * @return generator self reference
+     */
+    private IGenerator messages( final File p_grammar, final File p_outputdirectory, final Collection<String> p_messages )
+    {
+        if ( m_failfast && ( !p_messages.isEmpty() ) )
+            m_cancel.set( true );
+        return this.processmessages( p_grammar, p_outputdirectory, p_messages );
     }
 
     @Override
     public final boolean hasError()
     {
-        return m_error;
+        return m_error.get();
+    }
+
+    @Override
+    public final int cancelled()
+    {
+        return m_cancelled.get();
     }
 
     @Override
     public IGenerator finish()
     {
+        try
+        {
+            m_manifest.save();
+        }
+        catch ( final IOException l_exception )
+        {
+            throw new RuntimeException( CCommon.languagestring( IBaseGenerator.class, "manifest", l_exception.getMessage() ) );
+        }
         return this;
     }
 
+    /**
+     * returns the index file of a template output
+     *
+     * @param p_template template
+     * @param p_outputdirectory output directory
+     * @return index file
+     */
+    private File index( final ITemplate p_template, final File p_outputdirectory )
+    {
+        return CCommon.outputdirectory( m_baseoutput, p_template, p_outputdirectory, p_template.index() ).toFile();
+    }
+
     /**
      * processes the output directory
      *
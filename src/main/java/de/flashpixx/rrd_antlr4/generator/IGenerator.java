@@ -24,6 +24,8 @@
 package de.flashpixx.rrd_antlr4.generator;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 
 /**
@@ -39,6 +41,26 @@ public interface IGenerator
      */
     IGenerator generate( final File p_grammar );
 
+    /**
+     * generates exports for grammar files concurrently
+     *
+     * @param p_grammars stream of grammar files
+     * @param p_threads number of worker threads
+     * @return generator self reference
+     */
+    IGenerator generate( final Stream<File> p_grammars, final int p_threads );
+
+    /**
+     * regenerates the exports of the grammar files, which
+     * are changed or which import a changed grammar file
+     *
+     * @param p_changed changed grammar files
+     * @param p_grammars stream of all grammar files
+     * @param p_threads number of worker threads
+     * @return generator self reference
+     */
+    IGenerator changed( final Collection<File> p_changed, final Stream<File> p_grammars, final int p_threads );
+
     /**
      * boolean error flag
      *
@@ -46,6 +68,14 @@ public interface IGenerator
      */
     boolean hasError();
 
+    /**
+     * returns the number of grammar files, which
+     * are cancelled by the last run in fail-fast mode
+     *
+     * @return number of cancelled grammar files
+     */
+    int cancelled();
+
     /**
      * finishing after all grammar files are proceed
      *
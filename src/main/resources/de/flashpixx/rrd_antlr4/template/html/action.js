@@ -31,4 +31,62 @@ jQuery(function(){
         jQuery("#"+jQuery(this).attr("data-ruleset") ).fadeToggle();
     });
 
+    // diagram data, each diagram is rendered when the rule becomes visible
+    var l_data = document.getElementById("diagrams");
+    var l_diagrams = l_data ? JSON.parse(l_data.textContent) : {};
+    var l_elements = typeof Diagram === "undefined" ? {} : {
+        Diagram: Diagram, Sequence: Sequence, Choice: Choice, Optional: Optional, ZeroOrMore: ZeroOrMore,
+        OneOrMore: OneOrMore, Terminal: Terminal, NonTerminal: NonTerminal, Comment: Comment, Skip: Skip
+    };
+
+    // builds the diagram element of a data node
+    function element( p_node ) {
+        return Array.isArray(p_node)
+               ? l_elements[p_node[0]].apply( null, p_node.slice(1).map(element) )
+               : p_node;
+    }
+
+    // renders the diagram of a rule container once
+    function render( p_container ) {
+        if ( p_container.hasChildNodes() || !l_elements.Diagram )
+            return;
+
+        var l_grammar = l_diagrams[p_container.getAttribute("data-grammar")] || {};
+        var l_rule = p_container.getAttribute("data-rule");
+        if ( !l_grammar.hasOwnProperty(l_rule) )
+            return;
+
+        var l_svg = l_elements.Diagram( element(l_grammar[l_rule]) ).toSVG();
+        l_svg.id = "svg_" + l_rule;
+        p_container.appendChild(l_svg);
+    }
+
+    var l_containers = document.querySelectorAll("p.diagram");
+    if ( "IntersectionObserver" in window ) {
+        var l_observer = new IntersectionObserver( function(p_entries) {
+            p_entries.forEach( function(p_entry) {
+                if ( !p_entry.isIntersecting )
+                    return;
+
+                render(p_entry.target);
+                l_observer.unobserve(p_entry.target);
+            });
+        }, { rootMargin: "200px 0px" } );
+        Array.prototype.forEach.call( l_containers, function(i) { l_observer.observe(i); } );
+    }
+    else
+        Array.prototype.forEach.call( l_containers, render );
+
+    // renders the diagram of a rule before it is selected
+    function select( p_hash ) {
+        jQuery( "a[name='" + p_hash.replace( /^#/, "" ) + "']" ).siblings("p.diagram").each( function() { render(this); } );
+    }
+
+    jQuery( ".sidebar-nav a" ).click( function(p_event) {
+        select( jQuery(this).attr("href") );
+    });
+
+    if ( window.location.hash )
+        select( window.location.hash );
+
 });
\ No newline at end of file
@@ -0,0 +1,421 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+/**
+ * generator of synthetic grammars for scale and stress tests,
+ * the grammar is defined by a seed, so equal parameters
+ * create equal grammars
+ *
+ * @note parser rules reference following rules, lexer rules and literals, lexer rules
+ * are literals or regex-heavy expressions. Only rule-level blocks can be optional, so
+ * no closure contains an alternative which matches the empty string. Imports are a chain of lexer grammars, the
+ * first import is imported by the grammar and each import imports the next one.
+ */
+public final class CSyntheticGrammar
+{
+    /**
+     * words of the documentation
+     */
+    private static final String[] WORDS = {"the", "rule", "matches", "a", "sequence", "of", "elements", "which", "is", "optional", "or", "repeated"};
+    /**
+     * regex-heavy lexer expressions
+     */
+    private static final String[] REGEX = {
+        "[a-zA-Z_] [a-zA-Z_0-9]*",
+        "'0x' [0-9a-fA-F]+ ( '_' [0-9a-fA-F]+ )*",
+        "'\"' ( ~[\"\\\\\\r\\n] | '\\\\' . )* '\"'",
+        "'-'? [0-9]+ ( '.' [0-9]+ )? ( [eE] [+\\-]? [0-9]+ )?",
+        "'/*' .*? '*/'",
+        "( 'a'..'f' | [g-z] )+ ~[ \\t]"
+    };
+    /**
+     * suffixes of rule-level blocks
+     */
+    private static final String[] SUFFIX = {"", "?", "*", "+"};
+    /**
+     * suffixes of atoms and nested blocks, which cannot match the empty string
+     */
+    private static final String[] NONEMPTYSUFFIX = {"", "+"};
+    /**
+     * number of lexer rules of an import
+     */
+    private static final int IMPORTRULES = 2;
+    /**
+     * grammar name
+     */
+    private final String m_name;
+    /**
+     * number of rules
+     */
+    private int m_rules = 100;
+    /**
+     * number of alternatives of a rule or block
+     */
+    private int m_fanout = 3;
+    /**
+     * nesting depth of blocks
+     */
+    private int m_depth = 2;
+    /**
+     * ratio of lexer rules
+     */
+    private double m_lexerratio = 0.25;
+    /**
+     * lexer rules are regex-heavy
+     */
+    private boolean m_regex = true;
+    /**
+     * length of the import chain
+     */
+    private int m_imports;
+    /**
+     * number of words of a documentation comment
+     */
+    private int m_documentation = 8;
+    /**
+     * random seed
+     */
+    private long m_seed;
+
+    /**
+     * ctor
+     *
+     * @param p_name grammar name
+     */
+    public CSyntheticGrammar( final String p_name )
+    {
+        m_name = p_name;
+    }
+
+    /**
+     * sets the number of rules
+     *
+     * @param p_rules number of lexer and parser rules
+     * @return self reference
+     */
+    public final CSyntheticGrammar rules( final int p_rules )
+    {
+        m_rules = Math.max( 1, p_rules );
+        return this;
+    }
+
+    /**
+     * sets the alternative fan-out
+     *
+     * @param p_fanout number of alternatives of a rule or block
+     * @return self reference
+     */
+    public final CSyntheticGrammar fanout( final int p_fanout )
+    {
+        m_fanout = Math.max( 1, p_fanout );
+        return this;
+    }
+
+    /**
+     * sets the nesting depth
+     *
+     * @param p_depth nesting depth of blocks
+     * @return self reference
+     */
+    public final CSyntheticGrammar depth( final int p_depth )
+    {
+        m_depth = Math.max( 0, p_depth );
+        return this;
+    }
+
+    /**
+     * sets the ratio of lexer to all rules
+     *
+     * @param p_ratio ratio within [0,1)
+     * @return self reference
+     */
+    public final CSyntheticGrammar lexerratio( final double p_ratio )
+    {
+        m_lexerratio = Math.max( 0, Math.min( 1, p_ratio ) );
+        return this;
+    }
+
+    /**
+     * sets the lexer rules regex-heavy
+     *
+     * @param p_regex regex-heavy lexer rules
+     * @return self reference
+     */
+    public final CSyntheticGrammar regex( final boolean p_regex )
+    {
+        m_regex = p_regex;
+        return this;
+    }
+
+    /**
+     * sets the length of the import chain
+     *
+     * @param p_imports number of imported grammars
+     * @return self reference
+     */
+    public final CSyntheticGrammar imports( final int p_imports )
+    {
+        m_imports = Math.max( 0, p_imports );
+        return this;
+    }
+
+    /**
+     * sets the size of the documentation comments
+     *
+     * @param p_words number of words, zero disables comments
+     * @return self reference
+     */
+    public final CSyntheticGrammar documentation( final int p_words )
+    {
+        m_documentation = Math.max( 0, p_words );
+        return this;
+    }
+
+    /**
+     * sets the random seed
+     *
+     * @param p_seed seed
+     * @return self reference
+     */
+    public final CSyntheticGrammar seed( final long p_seed )
+    {
+        m_seed = p_seed;
+        return this;
+    }
+
+    /**
+     * returns the grammar name
+     *
+     * @return name
+     */
+    public final String name()
+    {
+        return m_name;
+    }
+
+    /**
+     * returns the name of an import
+     *
+     * @param p_index index within the import chain
+     * @return name
+     */
+    public final String importname( final int p_index )
+    {
+        return m_name + "Import" + p_index;
+    }
+
+    /**
+     * creates the grammar sources
+     *
+     * @return unmodifiable map with grammar name and source, the
+     * first entry is the grammar, followed by the import chain
+     */
+    public final Map<String, String> grammars()
+    {
+        final Random l_random = new Random( m_seed );
+        final Map<String, String> l_grammars = new LinkedHashMap<>();
+
+        l_grammars.put( m_name, this.grammar( l_random ) );
+        IntStream.range( 0, m_imports ).forEach( i -> l_grammars.put( this.importname( i ), this.lexergrammar( i, l_random ) ) );
+
+        return Collections.unmodifiableMap( l_grammars );
+    }
+
+    /**
+     * writes the grammar files
+     *
+     * @param p_directory directory
+     * @return unmodifiable map with grammar name and file, the
+     * first entry is the grammar, followed by the import chain
+     * @throws IOException on io errors
+     */
+    public final Map<String, File> write( final Path p_directory ) throws IOException
+    {
+        final Map<String, File> l_files = new LinkedHashMap<>();
+        for ( final Map.Entry<String, String> l_grammar : this.grammars().entrySet() )
+            l_files.put(
+                l_grammar.getKey(),
+                Files.write( p_directory.resolve( l_grammar.getKey() + ".g4" ), l_grammar.getValue().getBytes( StandardCharsets.UTF_8 ) ).toFile()
+            );
+
+        return Collections.unmodifiableMap( l_files );
+    }
+
+    /**
+     * creates the combined grammar
+     *
+     * @param p_random random generator
+     * @return grammar source
+     */
+    private String grammar( final Random p_random )
+    {
+        final int l_lexer = (int) Math.round( m_rules * m_lexerratio );
+        final int l_parser = Math.max( 1, m_rules - l_lexer );
+        final StringBuilder l_grammar = new StringBuilder();
+
+        this.documentation( l_grammar, p_random );
+        l_grammar.append( "grammar " ).append( m_name ).append( ";\n\n" );
+        if ( m_imports > 0 )
+            l_grammar.append( "import " ).append( this.importname( 0 ) ).append( ";\n\n" );
+
+        for ( int i = 0; i < l_parser; i++ )
+        {
+            this.documentation( l_grammar, p_random );
+            l_grammar.append( "rule" ).append( i ).append( "\n    : " )
+                     .append( this.alternatives( i, l_parser, l_lexer, m_depth, p_random ).collect( Collectors.joining( "\n    | " ) ) )
+                     .append( "\n    ;\n\n" );
+        }
+
+        for ( int i = 0; i < l_lexer; i++ )
+            this.lexerrule( l_grammar, "TOKEN" + i, "tok" + i, p_random );
+
+        return l_grammar.append( "WS : [ \\t\\r\\n]+ -> skip ;\n" ).toString();
+    }
+
+    /**
+     * creates a lexer grammar of the import chain
+     *
+     * @param p_index index within the import chain
+     * @param p_random random generator
+     * @return grammar source
+     */
+    private String lexergrammar( final int p_index, final Random p_random )
+    {
+        final StringBuilder l_grammar = new StringBuilder();
+
+        this.documentation( l_grammar, p_random );
+        l_grammar.append( "lexer grammar " ).append( this.importname( p_index ) ).append( ";\n\n" );
+        if ( p_index < m_imports - 1 )
+            l_grammar.append( "import " ).append( this.importname( p_index + 1 ) ).append( ";\n\n" );
+
+        for ( int i = 0; i < IMPORTRULES; i++ )
+            this.lexerrule( l_grammar, "IMPORT" + p_index + "_" + i, "imp" + p_index + "_" + i, p_random );
+
+        return l_grammar.toString();
+    }
+
+    /**
+     * appends a lexer rule
+     *
+     * @param p_grammar grammar source
+     * @param p_name rule name
+     * @param p_literal literal of non-regex rules
+     * @param p_random random generator
+     */
+    private void lexerrule( final StringBuilder p_grammar, final String p_name, final String p_literal, final Random p_random )
+    {
+        this.documentation( p_grammar, p_random );
+        p_grammar.append( p_name ).append( "\n    : " )
+                 .append( m_regex ? REGEX[p_random.nextInt( REGEX.length )] : "'" + p_literal + "'" )
+                 .append( "\n    ;\n\n" );
+    }
+
+    /**
+     * creates the alternatives of a rule or block
+     *
+     * @param p_rule index of the rule
+     * @param p_parser number of parser rules
+     * @param p_lexer number of lexer rules
+     * @param p_depth remaining nesting depth
+     * @param p_random random generator
+     * @return stream with alternatives
+     */
+    private Stream<String> alternatives( final int p_rule, final int p_parser, final int p_lexer, final int p_depth, final Random p_random )
+    {
+        return IntStream.range( 0, m_fanout )
+                        .mapToObj( i -> IntStream.rangeClosed( 0, p_random.nextInt( 3 ) )
+                                                 .mapToObj( j -> this.element( p_rule, p_parser, p_lexer, p_depth, p_random ) )
+                                                 .collect( Collectors.joining( " " ) ) );
+    }
+
+    /**
+     * creates an element, which is a block or an atom
+     *
+     * @param p_rule index of the rule
+     * @param p_parser number of parser rules
+     * @param p_lexer number of lexer rules
+     * @param p_depth remaining nesting depth
+     * @param p_random random generator
+     * @return element
+     */
+    private String element( final int p_rule, final int p_parser, final int p_lexer, final int p_depth, final Random p_random )
+    {
+        if ( ( p_depth > 0 ) && ( p_random.nextBoolean() ) )
+        {
+            final String[] l_suffix = p_depth == m_depth ? SUFFIX : NONEMPTYSUFFIX;
+            return "( " + this.alternatives( p_rule, p_parser, p_lexer, p_depth - 1, p_random ).collect( Collectors.joining( " | " ) ) + " )"
+                   + l_suffix[p_random.nextInt( l_suffix.length )];
+        }
+
+        switch ( p_random.nextInt( 3 ) )
+        {
+            case 0:
+                // references a following rule, so rules are not left-recursive
+                return p_rule + 1 < p_parser
+                       ? "rule" + ( p_rule + 1 + p_random.nextInt( p_parser - p_rule - 1 ) )
+                       : "'end'";
+
+            case 1:
+                return p_lexer > 0
+                       ? "TOKEN" + p_random.nextInt( p_lexer ) + NONEMPTYSUFFIX[p_random.nextInt( NONEMPTYSUFFIX.length )]
+                       : "'token'";
+
+            default:
+                return "'lit" + p_random.nextInt( p_parser ) + "'";
+        }
+    }
+
+    /**
+     * appends a documentation comment
+     *
+     * @param p_grammar grammar source
+     * @param p_random random generator
+     */
+    private void documentation( final StringBuilder p_grammar, final Random p_random )
+    {
+        if ( m_documentation == 0 )
+            return;
+
+        p_grammar.append( "/**" );
+        for ( int i = 0; i < m_documentation; i++ )
+            p_grammar.append( i % 12 == 0 ? "\n * " : " " ).append( WORDS[p_random.nextInt( WORDS.length )] );
+        p_grammar.append( "\n */\n" );
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4;
+
+import de.flashpixx.rrd_antlr4.antlr.ANTLRv4Parser;
+import de.flashpixx.rrd_antlr4.antlr.CASTVisitorAntLR;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarParser;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import de.flashpixx.rrd_antlr4.engine.CMetrics;
+import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import de.flashpixx.rrd_antlr4.engine.template.ITemplateProvider;
+import org.antlr.v4.runtime.CharStreams;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+
+/**
+ * deterministic scale tests of the engine with synthetic grammars,
+ * the growth of the allocated memory is checked here and the growth
+ * of time is measured by the CScaleBenchmark of the benchmark profile
+ */
+public final class TestCEngineScale extends IBaseTest
+{
+    /**
+     * templates
+     */
+    private static final Set<ITemplateProvider> TEMPLATES = Collections.unmodifiableSet( Stream.<ITemplateProvider>of( ETemplate.values() ).collect( Collectors.toSet() ) );
+    /**
+     * number of rules of the small grammar
+     */
+    private static final int RULES = 250;
+    /**
+     * number of rules of the parallel converted grammar
+     */
+    private static final int PARALLELRULES = 1000;
+    /**
+     * length of the import chain
+     */
+    private static final int IMPORTS = 3;
+    /**
+     * number of rules of the small and the large grammar of the growth test
+     */
+    private static final int[] GROWTHRULES = {500, 4000};
+    /**
+     * number of runs of each grammar size of the growth test
+     */
+    private static final int GROWTHRUNS = 3;
+    /**
+     * maximum ratio of the allocated bytes per rule of the large and the small
+     * grammar, a linear growth has a ratio near one, a quadratic growth the
+     * ratio of the grammar sizes
+     */
+    private static final double MAXIMUMGROWTH = 2;
+
+    /**
+     * test each grammar file is parsed once, independent of the number of templates
+     *
+     * @throws IOException on io errors
+     */
+    @Test
+    public final void testParsedOnce() throws IOException
+    {
+        final CMetrics l_metrics = new CMetrics( true );
+        this.run( new CSyntheticGrammar( "Synthetic" ).rules( RULES ).imports( IMPORTS ), l_metrics );
+
+        final List<String[]> l_parsing = l_metrics.table()
+                                                  .stream()
+                                                  .filter( i -> CMetrics.EPhase.PARSING.toString().equals( i[2] ) )
+                                                  .collect( Collectors.toList() );
+
+        assertEquals( 1 + IMPORTS, l_parsing.size() );
+        l_parsing.forEach( i -> assertEquals( MessageFormat.format( "grammar {0} is parsed multiple times", i[0] ), "1", i[3] ) );
+    }
+
+    /**
+     * test the parallel rule conversion creates
+     * the same rules as the sequential conversion
+     */
+    @Test
+    public final void testParallelRules()
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        final ANTLRv4Parser.GrammarSpecContext l_tree;
+        try
+        {
+            l_tree = l_parser.lex(
+                CharStreams.fromString( new CSyntheticGrammar( "Synthetic" ).rules( PARALLELRULES ).grammars().get( "Synthetic" ) )
+            ).parse();
+        }
+        finally
+        {
+            l_parser.release();
+        }
+
+        final CASTVisitorAntLR l_sequential = new CASTVisitorAntLR( Collections.emptySet() );
+        l_sequential.visit( l_tree );
+        final IGrammarModel l_expected = l_sequential.model();
+
+        final CASTVisitorAntLR l_parallel = new CASTVisitorAntLR( Collections.emptySet(), 1 );
+        l_parallel.visit( l_tree );
+        final IGrammarModel l_actual = l_parallel.model();
+
+        assertEquals( PARALLELRULES + 1, l_actual.rules().size() );
+        assertEquals( l_expected.grammar(), l_actual.grammar() );
+        assertEquals( l_expected.rules(), l_actual.rules() );
+    }
+
+    /**
+     * test the allocated memory per rule does not grow with the grammar size,
+     * the allocated bytes are deterministic in contrast to the time, the minimum
+     * of several runs excludes the allocations of class loading and warm-up
+     *
+     * @throws IOException on io errors
+     */
+    @Test
+    public final void testLinearAllocation() throws IOException
+    {
+        final double l_small = this.allocation( GROWTHRULES[0] );
+        final double l_large = this.allocation( GROWTHRULES[1] );
+        assumeTrue( "allocated bytes are not supported by the JVM", ( l_small > 0 ) && ( l_large > 0 ) );
+
+        assertTrue(
+            MessageFormat.format(
+                "allocated bytes per rule grow from {0,number,#} with {1,number,#} rules to {2,number,#} with {3,number,#} rules",
+                l_small, GROWTHRULES[0], l_large, GROWTHRULES[1]
+            ),
+            l_large / l_small <= MAXIMUMGROWTH
+        );
+    }
+
+    /**
+     * returns the minimum of the allocated bytes per rule of several runs
+     *
+     * @param p_rules number of rules
+     * @return allocated bytes per rule
+     * @throws IOException on io errors
+     */
+    private double allocation( final int p_rules ) throws IOException
+    {
+        double l_minimum = Double.MAX_VALUE;
+        for ( int i = 0; i < GROWTHRUNS; i++ )
+        {
+            final CMetrics l_metrics = new CMetrics( true );
+            this.run( new CSyntheticGrammar( "Synthetic" ).rules( p_rules ), l_metrics );
+
+            // the import phase contains the nested phases of the imports, so it is not added
+            l_minimum = Math.min(
+                l_minimum,
+                1024.0 * l_metrics.table()
+                                  .stream()
+                                  .filter( j -> !CMetrics.EPhase.IMPORTS.toString().equals( j[2] ) )
+                                  .mapToLong( j -> Long.parseLong( j[5] ) )
+                                  .sum() / p_rules
+            );
+        }
+        return l_minimum;
+    }
+
+    /**
+     * runs the engine with all templates
+     *
+     * @param p_grammar synthetic grammar
+     * @param p_metrics metrics
+     * @throws IOException on io errors
+     */
+    private void run( final CSyntheticGrammar p_grammar, final CMetrics p_metrics ) throws IOException
+    {
+        final Path l_directory = Files.createTempDirectory( "rrd-scale" );
+        try
+        {
+            final Map<String, File> l_imports = new HashMap<>( p_grammar.write( l_directory ) );
+            final File l_file = l_imports.remove( p_grammar.name() );
+
+            final Collection<String> l_errors = new CEngine( null, false, p_metrics ).generate(
+                l_directory.resolve( "output" ).toFile(), new File( p_grammar.name() ), l_file, Collections.emptySet(), l_imports, TEMPLATES
+            );
+            assertTrue( l_errors.toString(), l_errors.isEmpty() );
+        }
+        finally
+        {
+            FileUtils.deleteDirectory( l_directory.toFile() );
+        }
+    }
+
+    /**
+     * main method
+     *
+     * @param p_args arguments
+     * @throws IOException on io errors
+     */
+    public static void main( final String[] p_args ) throws IOException
+    {
+        new TestCEngineScale().invoketest();
+    }
+
+}
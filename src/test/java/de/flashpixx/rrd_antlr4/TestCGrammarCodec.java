@@ -0,0 +1,221 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4;
+
+import de.flashpixx.rrd_antlr4.antlr.ANTLRv4Parser;
+import de.flashpixx.rrd_antlr4.antlr.CASTVisitorAntLR;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarCodec;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarParser;
+import de.flashpixx.rrd_antlr4.antlr.IGrammarModel;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+
+/**
+ * test of the binary grammar model codec
+ */
+public final class TestCGrammarCodec extends IBaseTest
+{
+    /**
+     * length of the header with magic number and version
+     */
+    private static final int HEADER = 5;
+
+    /**
+     * test a model is equal after writing and reading
+     *
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    @Test
+    public final void testRoundTrip() throws IOException, URISyntaxException
+    {
+        final IGrammarModel l_model = TestCGrammarCodec.model();
+        final ByteArrayOutputStream l_output = new ByteArrayOutputStream();
+        CGrammarCodec.write( l_model, l_output );
+
+        TestCGrammarCodec.assertmodel( l_model, CGrammarCodec.read( new ByteArrayInputStream( l_output.toByteArray() ) ) );
+        TestCGrammarCodec.assertmodel( l_model, CGrammarCodec.read( new ByteArrayInputStream( l_output.toByteArray() ), l_output.size() ) );
+    }
+
+    /**
+     * test a sequence of models is equal after writing and reading
+     *
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    @Test
+    public final void testWriterRoundTrip() throws IOException, URISyntaxException
+    {
+        final IGrammarModel l_model = TestCGrammarCodec.model();
+        final ByteArrayOutputStream l_output = new ByteArrayOutputStream();
+        new CGrammarCodec.CWriter( l_output ).write( l_model ).write( l_model ).finish();
+
+        final List<IGrammarModel> l_models = CGrammarCodec.readall( new ByteArrayInputStream( l_output.toByteArray() ) );
+        assertEquals( 2, l_models.size() );
+        l_models.forEach( i -> TestCGrammarCodec.assertmodel( l_model, i ) );
+    }
+
+    /**
+     * test each truncated input is rejected with an io exception
+     *
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    @Test
+    public final void testTruncated() throws IOException, URISyntaxException
+    {
+        final ByteArrayOutputStream l_output = new ByteArrayOutputStream();
+        new CGrammarCodec.CWriter( l_output ).write( TestCGrammarCodec.model() ).finish();
+
+        final byte[] l_bytes = l_output.toByteArray();
+        for ( int i = 0; i < l_bytes.length; i++ )
+            TestCGrammarCodec.assertinvalid( Arrays.copyOf( l_bytes, i ) );
+    }
+
+    /**
+     * test garbage input is rejected with an io exception
+     *
+     * @throws IOException on io errors
+     */
+    @Test
+    public final void testGarbage() throws IOException
+    {
+        final byte[] l_random = new byte[1024];
+        new Random( 42 ).nextBytes( l_random );
+        TestCGrammarCodec.assertinvalid( l_random );
+
+        final ByteArrayOutputStream l_output = new ByteArrayOutputStream();
+        new CGrammarCodec.CWriter( l_output ).finish();
+        final byte[] l_header = Arrays.copyOf( l_output.toByteArray(), HEADER );
+
+        // grammar is an identifier
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 1, 2, 0, 0, 1, 'a', 0, 0, 0 ) );
+        // choice with a huge number of elements
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 1, 3, 0, 0xff, 0xff, 0xff, 0x3f ) );
+        // grammar with a huge name
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 1, 9, 0, 0, 0xff, 0xff, 0xff, 0x3f ) );
+        // string index without a string table
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 1, 9, 0, 5 ) );
+        // invalid tag
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 1, 0xff ) );
+        // number without an end
+        TestCGrammarCodec.assertinvalid( TestCGrammarCodec.concat( l_header, 0x80, 0x80, 0x80, 0x80, 0x80 ) );
+    }
+
+    /**
+     * main method
+     *
+     * @param p_args arguments
+     */
+    public static void main( final String[] p_args )
+    {
+        new TestCGrammarCodec().invoketest();
+    }
+
+    /**
+     * parses the JSON test grammar
+     *
+     * @return model
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    private static IGrammarModel model() throws IOException, URISyntaxException
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        final ANTLRv4Parser.GrammarSpecContext l_tree;
+        try
+        {
+            l_tree = l_parser.lex( CharStreams.fromPath( Paths.get( TestCGrammarCodec.class.getResource( "/JSON.g4" ).toURI() ) ) ).parse();
+        }
+        finally
+        {
+            l_parser.release();
+        }
+
+        final CASTVisitorAntLR l_visitor = new CASTVisitorAntLR( Collections.emptySet() );
+        l_visitor.visit( l_tree );
+        return l_visitor.model();
+    }
+
+    /**
+     * asserts two models are equal
+     *
+     * @param p_expected expected model
+     * @param p_actual decoded model
+     */
+    private static void assertmodel( final IGrammarModel p_expected, final IGrammarModel p_actual )
+    {
+        assertEquals( p_expected.grammar(), p_actual.grammar() );
+        assertEquals( p_expected.rules(), p_actual.rules() );
+        assertEquals( p_expected.imports(), p_actual.imports() );
+    }
+
+    /**
+     * asserts an input is rejected with an io exception,
+     * any other exception or error fails the test
+     *
+     * @param p_input input
+     */
+    private static void assertinvalid( final byte[] p_input )
+    {
+        try
+        {
+            CGrammarCodec.readall( new ByteArrayInputStream( p_input ) );
+            fail( "invalid input with " + p_input.length + " bytes is read" );
+        }
+        catch ( final IOException l_exception )
+        {
+            // expected, the input is rejected
+        }
+    }
+
+    /**
+     * concats the header and the content
+     *
+     * @param p_header header
+     * @param p_content content bytes
+     * @return input
+     */
+    private static byte[] concat( final byte[] p_header, final int... p_content )
+    {
+        final byte[] l_input = Arrays.copyOf( p_header, p_header.length + p_content.length );
+        for ( int i = 0; i < p_content.length; i++ )
+            l_input[p_header.length + i] = (byte) p_content[i];
+        return l_input;
+    }
+}
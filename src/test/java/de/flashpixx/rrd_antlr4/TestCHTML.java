@@ -0,0 +1,263 @@
+/*
+ * @cond LICENSE
+ * ######################################################################################
+ * # LGPL License                                                                       #
+ * #                                                                                    #
+ * # This file is part of the RRD-AntLR4                                                #
+ * # Copyright (c) 2016-17, Philipp Kraus (philipp.kraus@flashpixx.de)                  #
+ * # This program is free software: you can redistribute it and/or modify               #
+ * # it under the terms of the GNU Lesser General Public License as                     #
+ * # published by the Free Software Foundation, either version 3 of the                 #
+ * # License, or (at your option) any later version.                                    #
+ * #                                                                                    #
+ * # This program is distributed in the hope that it will be useful,                    #
+ * # but WITHOUT ANY WARRANTY; without even the implied warranty of                     #
+ * # MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the                      #
+ * # GNU Lesser General Public License for more details.                                #
+ * #                                                                                    #
+ * # You should have received a copy of the GNU Lesser General Public License           #
+ * # along with this program. If not, see http://www.gnu.org/licenses/                  #
+ * ######################################################################################
+ * @endcond
+ */
+
+package de.flashpixx.rrd_antlr4;
+
+import de.flashpixx.rrd_antlr4.antlr.ANTLRv4Parser;
+import de.flashpixx.rrd_antlr4.antlr.CASTVisitorAntLR;
+import de.flashpixx.rrd_antlr4.antlr.CGrammarParser;
+import de.flashpixx.rrd_antlr4.engine.CEngine;
+import de.flashpixx.rrd_antlr4.engine.template.ETemplate;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * test of the HTML template
+ */
+public final class TestCHTML extends IBaseTest
+{
+    /**
+     * grammar with empty alternatives
+     */
+    private static final String GRAMMAR = "grammar Empty;\n"
+                                          + "start : item | ;\n"
+                                          + "item : 'a' ( 'b' | ) item? ;\n"
+                                          + "empty : ( ) ;\n"
+                                          + "WS : [ \\t\\r\\n]+ -> skip ;\n";
+    /**
+     * pattern of the diagram data
+     */
+    private static final Pattern DIAGRAMS = Pattern.compile( "<script[^>]*id = \"diagrams\"[^>]*>(.*?)</script", Pattern.DOTALL );
+
+    /**
+     * test the diagram data of a grammar with empty alternatives is valid JSON
+     *
+     * @throws IOException on io errors
+     * @throws URISyntaxException on uri errors
+     */
+    @Test
+    public final void testEmptyAlternative() throws IOException, URISyntaxException
+    {
+        final CGrammarParser l_parser = CGrammarParser.instance();
+        final ANTLRv4Parser.GrammarSpecContext l_tree;
+        try
+        {
+            l_tree = l_parser.lex( CharStreams.fromString( GRAMMAR ) ).parse();
+        }
+        finally
+        {
+            l_parser.release();
+        }
+
+        final CASTVisitorAntLR l_visitor = new CASTVisitorAntLR( Collections.emptySet() );
+        l_visitor.visit( l_tree );
+
+        final StringWriter l_output = new StringWriter();
+        new CEngine().generate( ETemplate.HTML, Collections.singletonList( l_visitor.model() ), l_output, "" );
+
+        final Matcher l_matcher = DIAGRAMS.matcher( l_output.toString() );
+        assertTrue( "diagram data not found", l_matcher.find() );
+
+        final String l_json = l_matcher.group( 1 ).trim();
+        assertEquals( l_json, l_json.length(), new CJson( l_json ).validate() );
+    }
+
+    /**
+     * main method
+     *
+     * @param p_args arguments
+     */
+    public static void main( final String[] p_args )
+    {
+        new TestCHTML().invoketest();
+    }
+
+
+    /**
+     * strict JSON validator like JSON.parse
+     * of the browser without building values
+     */
+    private static final class CJson
+    {
+        /**
+         * pattern of a number
+         */
+        private static final Pattern NUMBER = Pattern.compile( "-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?" );
+        /**
+         * pattern of a string
+         */
+        private static final Pattern STRING = Pattern.compile( "\"([^\"\\\\\\x00-\\x1F]|\\\\([\"\\\\/bfnrt]|u[0-9a-fA-F]{4}))*\"" );
+        /**
+         * input
+         */
+        private final String m_input;
+        /**
+         * current position
+         */
+        private int m_position;
+
+        /**
+         * ctor
+         *
+         * @param p_input input
+         */
+        CJson( final String p_input )
+        {
+            m_input = p_input;
+        }
+
+        /**
+         * validates the input
+         *
+         * @return position after the value, which is the input length on a valid input
+         */
+        final int validate()
+        {
+            this.value();
+            this.whitespace();
+            return m_position;
+        }
+
+        /**
+         * reads a value
+         */
+        private void value()
+        {
+            this.whitespace();
+            if ( m_position >= m_input.length() )
+                throw new AssertionError( "value expected at end of input" );
+
+            switch ( m_input.charAt( m_position ) )
+            {
+                case '{':
+                    this.collection( '}', true );
+                    return;
+
+                case '[':
+                    this.collection( ']', false );
+                    return;
+
+                case '"':
+                    this.token( STRING );
+                    return;
+
+                default:
+                    if ( m_input.startsWith( "true", m_position ) || m_input.startsWith( "null", m_position ) )
+                        m_position += 4;
+                    else if ( m_input.startsWith( "false", m_position ) )
+                        m_position += 5;
+                    else
+                        this.token( NUMBER );
+            }
+        }
+
+        /**
+         * reads an object or an array
+         *
+         * @param p_end closing character
+         * @param p_object object with keys
+         */
+        private void collection( final char p_end, final boolean p_object )
+        {
+            m_position++;
+            this.whitespace();
+            if ( this.next( p_end ) )
+                return;
+
+            do
+            {
+                if ( p_object )
+                {
+                    this.whitespace();
+                    this.token( STRING );
+                    this.whitespace();
+                    this.expect( ':' );
+                }
+                this.value();
+                this.whitespace();
+            }
+            while ( this.next( ',' ) );
+
+            this.expect( p_end );
+        }
+
+        /**
+         * reads a token
+         *
+         * @param p_pattern token pattern
+         */
+        private void token( final Pattern p_pattern )
+        {
+            final Matcher l_matcher = p_pattern.matcher( m_input ).region( m_position, m_input.length() );
+            if ( !l_matcher.lookingAt() )
+                throw new AssertionError( "invalid token at position " + m_position );
+            m_position = l_matcher.end();
+        }
+
+        /**
+         * reads an expected character
+         *
+         * @param p_char character
+         */
+        private void expect( final char p_char )
+        {
+            if ( !this.next( p_char ) )
+                throw new AssertionError( "[" + p_char + "] expected at position " + m_position );
+        }
+
+        /**
+         * reads a character if it is the next one
+         *
+         * @param p_char character
+         * @return character is read
+         */
+        private boolean next( final char p_char )
+        {
+            if ( ( m_position >= m_input.length() ) || ( m_input.charAt( m_position ) != p_char ) )
+                return false;
+            m_position++;
+            return true;
+        }
+
+        /**
+         * skips whitespaces
+         */
+        private void whitespace()
+        {
+            while ( ( m_position < m_input.length() ) && ( " \t\r\n".indexOf( m_input.charAt( m_position ) ) >= 0 ) )
+                m_position++;
+        }
+    }
+
+}